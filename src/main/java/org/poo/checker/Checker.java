@@ -1,17 +1,19 @@
 package org.poo.checker;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class Checker {
     private static int gitScore;
@@ -91,8 +93,23 @@ public final class Checker {
         }
         List<String> listFile = Arrays.asList(Objects.requireNonNull(directory.list()));
         Collections.sort(listFile);
-        for (String file : listFile) {
-            totalScore += calculateScore(file);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<String>> differences = new ArrayList<>();
+            for (String file : listFile) {
+                differences.add(executor.submit(() -> checkOutput(file)));
+            }
+            for (int i = 0; i < listFile.size(); i++) {
+                totalScore += printScore(listFile.get(i), differences.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while checking the outputs.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not check an output.", e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
 
         System.out.println("-----------------------------------------------------");
@@ -104,7 +121,17 @@ public final class Checker {
      * @return the score of that test
      */
     public static int calculateScore(final String input) {
-        if (checkOutput(input)) {
+        return printScore(input, checkOutput(input));
+    }
+
+    /**
+     * Prints the result of a test
+     * @param input the test
+     * @param difference null if the test passed, the first difference otherwise
+     * @return the score of that test
+     */
+    private static int printScore(final String input, final String difference) {
+        if (difference == null) {
             System.out.print(input + " ");
             for (int i = 1;  i <= CheckerConstants.LEN_LONGEST_TEST_NAME - input.length(); i++) {
                 System.out.print("-");
@@ -118,6 +145,7 @@ public final class Checker {
                 System.out.print("-");
             }
             System.out.println("--------------------------------------------- FAILED (+0)");
+            System.out.println("    first difference at " + difference);
             return 0;
         }
     }
@@ -125,20 +153,16 @@ public final class Checker {
     /**
      * @param file the test you want to check
      * @return
-     *          if the two files are equal or not
+     *          null if the two files are equal, the first difference otherwise
      */
-    private static boolean checkOutput(final String file) {
-        ObjectMapper mapper = new ObjectMapper();
-
+    private static String checkOutput(final String file) {
         try {
-            JsonNode output = mapper.readTree(new File(CheckerConstants.OUT_PATH + file));
-            JsonNode ref = mapper.readTree(new File(CheckerConstants.REF_PATH + file));
-            return output.equals(ref);
-
+            return OutputComparator.compare(new File(CheckerConstants.OUT_PATH + file),
+                    new File(CheckerConstants.REF_PATH + file));
         } catch (IOException e) {
             e.printStackTrace();
+            return "the files could not be read (" + e.getMessage() + ")";
         }
-        return false;
     }
 
     /**
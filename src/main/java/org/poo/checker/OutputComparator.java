@@ -0,0 +1,155 @@
+package org.poo.checker;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Compares an output file with its reference. Identical files are recognized from their
+ * mapped bytes. Otherwise both files are streamed one top level entry at a time and the
+ * entries are compared as trees, the way the whole files used to be, so the comparison
+ * stops at the first entry that differs and can tell where it differs.
+ */
+public final class OutputComparator {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private OutputComparator() {
+    }
+
+    /**
+     * @param output the output file
+     * @param ref the reference file
+     * @return null if the files hold the same JSON, a description of the first difference
+     *         otherwise
+     * @throws IOException in case of exceptions to reading
+     */
+    public static String compare(final File output, final File ref) throws IOException {
+        if (sameBytes(output, ref)) {
+            return null;
+        }
+        try (JsonParser out = MAPPER.getFactory().createParser(output);
+             JsonParser expected = MAPPER.getFactory().createParser(ref)) {
+            JsonToken outToken = out.nextToken();
+            JsonToken refToken = expected.nextToken();
+            if (outToken != JsonToken.START_ARRAY || refToken != JsonToken.START_ARRAY) {
+                return difference(readTree(out), readTree(expected), "");
+            }
+            for (int index = 0;; index++) {
+                outToken = out.nextToken();
+                refToken = expected.nextToken();
+                if (outToken == JsonToken.END_ARRAY && refToken == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                if (outToken == JsonToken.END_ARRAY) {
+                    return "action " + index + ": missing from the output";
+                }
+                if (refToken == JsonToken.END_ARRAY) {
+                    return "action " + index + ": not in the reference";
+                }
+                String difference = difference(readTree(out), readTree(expected), "");
+                if (difference != null) {
+                    return "action " + index + ": " + difference;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param parser a parser positioned on the first token of a value
+     * @return the value, null for an empty file
+     * @throws IOException in case of exceptions to reading
+     */
+    private static JsonNode readTree(final JsonParser parser) throws IOException {
+        if (parser.currentToken() == null) {
+            return null;
+        }
+        return MAPPER.readTree(parser);
+    }
+
+    /**
+     * @param output the output file
+     * @param ref the reference file
+     * @return true if both files have the same bytes
+     * @throws IOException in case of exceptions to reading
+     */
+    private static boolean sameBytes(final File output, final File ref) throws IOException {
+        if (output.length() != ref.length()) {
+            return false;
+        }
+        try (FileChannel outChannel = FileChannel.open(output.toPath(), StandardOpenOption.READ);
+             FileChannel refChannel = FileChannel.open(ref.toPath(), StandardOpenOption.READ)) {
+            long size = outChannel.size();
+            if (size != refChannel.size() || size > Integer.MAX_VALUE) {
+                return false;
+            }
+            MappedByteBuffer outBytes = outChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            MappedByteBuffer refBytes = refChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return outBytes.mismatch(refBytes) == -1;
+        }
+    }
+
+    /**
+     * @param output a value of the output
+     * @param ref the same value of the reference
+     * @param path the JSON pointer of the value
+     * @return null if the values are equal, where and how they differ otherwise
+     */
+    private static String difference(final JsonNode output, final JsonNode ref,
+                                     final String path) {
+        if (output == null || ref == null) {
+            return output == ref ? null : at(path) + "expected " + ref + " but was " + output;
+        }
+        if (output.equals(ref)) {
+            return null;
+        }
+        if (output.isObject() && ref.isObject()) {
+            for (Iterator<String> names = ref.fieldNames(); names.hasNext();) {
+                String name = names.next();
+                if (!output.has(name)) {
+                    return at(path + "/" + name) + "missing from the output";
+                }
+                String difference = difference(output.get(name), ref.get(name),
+                        path + "/" + name);
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            for (Iterator<String> names = output.fieldNames(); names.hasNext();) {
+                String name = names.next();
+                if (!ref.has(name)) {
+                    return at(path + "/" + name) + "not in the reference";
+                }
+            }
+        }
+        if (output.isArray() && ref.isArray()) {
+            int size = Math.min(output.size(), ref.size());
+            for (int i = 0; i < size; i++) {
+                String difference = difference(output.get(i), ref.get(i), path + "/" + i);
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            if (output.size() != ref.size()) {
+                return at(path) + "expected " + ref.size() + " elements but was "
+                        + output.size();
+            }
+        }
+        return at(path) + "expected " + ref + " but was " + output;
+    }
+
+    /**
+     * @param path a JSON pointer
+     * @return the prefix naming the pointer
+     */
+    private static String at(final String path) {
+        return (path.isEmpty() ? "/" : path) + ": ";
+    }
+}
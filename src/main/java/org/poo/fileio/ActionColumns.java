@@ -0,0 +1,79 @@
+package org.poo.fileio;
+
+import java.util.Arrays;
+
+/**
+ * The actions of a game stored field by field in primitive columns, the way the mapped
+ * reader finds them in the input. A missing number reads as 0 and a missing or unknown
+ * command as PerfectHash.MISSING, as they would through ActionsInput. Missing coordinates
+ * read as 0 too, but unlike a position at 0, 0 they leave their bit of POSITIONS clear.
+ */
+public final class ActionColumns {
+    public static final int COMMAND = 0;
+    public static final int HAND_IDX = 1;
+    public static final int ATTACKER_X = 2;
+    public static final int ATTACKER_Y = 3;
+    public static final int ATTACKED_X = 4;
+    public static final int ATTACKED_Y = 5;
+    public static final int AFFECTED_ROW = 6;
+    public static final int PLAYER_IDX = 7;
+    public static final int X = 8;
+    public static final int Y = 9;
+    public static final int POSITIONS = 10;
+    public static final int FIELDS = 11;
+    public static final int HAS_ATTACKER = 1;
+    public static final int HAS_ATTACKED = 2;
+    private static final int MIN_CAPACITY = 16;
+
+    private final int[][] columns = new int[FIELDS][MIN_CAPACITY];
+    private int size;
+
+    /**
+     * Forgets every action
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return the number of actions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends an action with every field missing
+     * @return the index of the action
+     */
+    public int append() {
+        if (size == columns[COMMAND].length) {
+            for (int field = 0; field < FIELDS; field++) {
+                columns[field] = Arrays.copyOf(columns[field], size * 2);
+            }
+        }
+        for (int field = 0; field < FIELDS; field++) {
+            columns[field][size] = 0;
+        }
+        columns[COMMAND][size] = PerfectHash.MISSING;
+        return size++;
+    }
+
+    /**
+     * @param field the field
+     * @param action the index of the action
+     * @return the value of the field
+     */
+    public int get(final int field, final int action) {
+        return columns[field][action];
+    }
+
+    /**
+     * @param field the field
+     * @param action the index of the action
+     * @param value the new value of the field
+     */
+    public void set(final int field, final int action, final int value) {
+        columns[field][action] = value;
+    }
+}
@@ -0,0 +1,24 @@
+package org.poo.fileio;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An input whose decks are known up front and whose games are read one by one, with the
+ * actions of each game stored in primitive columns.
+ */
+public interface GameSource extends Closeable {
+    /**
+     * @return the input holding the decks of both players, without the games
+     */
+    Input getInput();
+
+    /**
+     * Reads the next game, its actions replacing the content of the columns
+     * @param actions the columns receiving the actions of the game
+     * @return the start of the game, empty if the game has none, null if there are no
+     *         games left
+     * @throws IOException in case of exceptions to reading
+     */
+    StartGameInput nextGame(ActionColumns actions) throws IOException;
+}
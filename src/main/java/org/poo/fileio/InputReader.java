@@ -0,0 +1,109 @@
+package org.poo.fileio;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Reads an input file one game at a time. The decks are read first; if they come before
+ * the games, every game is parsed only when it is asked for, otherwise the games are
+ * buffered until the decks are found.
+ */
+public final class InputReader implements Closeable {
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final Input input = new Input();
+    private Iterator<GameInput> buffered;
+    private boolean streaming;
+
+    /**
+     * Opens the file and reads it up to the first game, or to its end if the decks
+     * come after the games
+     * @param file the input file
+     * @param objectMapper the mapper used for the decks and the games
+     * @throws IOException in case of exceptions to reading
+     */
+    public InputReader(final File file, final ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.parser = objectMapper.getFactory().createParser(file);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected an object at the start of " + file + ".");
+        }
+        readFields();
+        if (!streaming && buffered == null) {
+            buffered = new ArrayList<GameInput>().iterator();
+        }
+    }
+
+    /**
+     * @return the input holding the decks of both players, without the games
+     */
+    public Input getInput() {
+        return input;
+    }
+
+    /**
+     * @return the next game of the file, null if there are no games left
+     * @throws IOException in case of exceptions to reading
+     */
+    public GameInput nextGame() throws IOException {
+        if (!streaming) {
+            return buffered.hasNext() ? buffered.next() : null;
+        }
+        if (parser.nextToken() != JsonToken.END_ARRAY) {
+            return objectMapper.readValue(parser, GameInput.class);
+        }
+        streaming = false;
+        buffered = new ArrayList<GameInput>().iterator();
+        readFields();
+        return null;
+    }
+
+    /**
+     * Reads the fields of the top level object until the games can be streamed or the
+     * object ends
+     * @throws IOException in case of exceptions to reading
+     */
+    private void readFields() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "playerOneDecks":
+                    input.setPlayerOneDecks(objectMapper.readValue(parser, DecksInput.class));
+                    break;
+                case "playerTwoDecks":
+                    input.setPlayerTwoDecks(objectMapper.readValue(parser, DecksInput.class));
+                    break;
+                case "games":
+                    if (token == JsonToken.VALUE_NULL) {
+                        break;
+                    }
+                    if (input.getPlayerOneDecks() != null && input.getPlayerTwoDecks() != null
+                            && token == JsonToken.START_ARRAY) {
+                        streaming = true;
+                        return;
+                    }
+                    ArrayList<GameInput> games = objectMapper.readValue(parser,
+                            new TypeReference<ArrayList<GameInput>>() { });
+                    buffered = games.iterator();
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
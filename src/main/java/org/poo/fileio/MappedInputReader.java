@@ -0,0 +1,710 @@
+package org.poo.fileio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Reads an input file through a memory mapping, tokenizing the bytes of the mapping in place.
+ * The decks and the start of the games become the usual input objects, while the actions of
+ * a game go straight into primitive columns. The fields of an action and the command names
+ * are resolved with perfect hashes on the raw bytes, without building strings.
+ */
+public final class MappedInputReader implements GameSource {
+    private static final PerfectHash ACTION_FIELDS = new PerfectHash(new String[] {
+        "command", "handIdx", "cardAttacker", "cardAttacked", "affectedRow", "playerIdx",
+        "x", "y",
+    });
+    private static final int FIELD_COMMAND = 0;
+    private static final int FIELD_HAND_IDX = 1;
+    private static final int FIELD_CARD_ATTACKER = 2;
+    private static final int FIELD_CARD_ATTACKED = 3;
+    private static final int FIELD_AFFECTED_ROW = 4;
+    private static final int FIELD_PLAYER_IDX = 5;
+    private static final int FIELD_X = 6;
+    private static final int FIELD_Y = 7;
+    private static final int DECIMAL = 10;
+    private static final int HEX = 16;
+    private static final int UNICODE_DIGITS = 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private final PerfectHash commands;
+    private final Input input = new Input();
+    private int pos;
+    private int stringStart;
+    private int stringLength;
+    private boolean stringEscaped;
+    private boolean inGames;
+    private boolean firstGame;
+
+    /**
+     * Maps the file and reads it up to the first game. If the decks come after the games,
+     * the games are skipped over and read once the decks are known.
+     * @param file the input file
+     * @param commandNames the command names, the id of a command being its index
+     * @throws IOException in case of exceptions to reading
+     */
+    public MappedInputReader(final File file, final String[] commandNames) throws IOException {
+        this.commands = new PerfectHash(commandNames);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        long length = channel.size();
+        if (length > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Input file " + file + " is too large to be mapped.");
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        this.limit = (int) length;
+
+        expect('{');
+        int games = -1;
+        if (peek() != '}') {
+            do {
+                String field = readString();
+                expect(':');
+                if (field.equals("playerOneDecks")) {
+                    input.setPlayerOneDecks(readDecks());
+                } else if (field.equals("playerTwoDecks")) {
+                    input.setPlayerTwoDecks(readDecks());
+                } else if (field.equals("games")) {
+                    if (isNull()) {
+                        games = -1;
+                        continue;
+                    }
+                    games = pos;
+                    if (input.getPlayerOneDecks() != null
+                            && input.getPlayerTwoDecks() != null) {
+                        break;
+                    }
+                    skipValue();
+                } else {
+                    skipValue();
+                }
+            } while (next('}'));
+        }
+        if (games >= 0) {
+            pos = games;
+            expect('[');
+            inGames = true;
+            firstGame = true;
+        }
+    }
+
+    @Override
+    public Input getInput() {
+        return input;
+    }
+
+    @Override
+    public StartGameInput nextGame(final ActionColumns actions) throws IOException {
+        actions.clear();
+        if (!inGames) {
+            return null;
+        }
+        if (firstGame ? peek() == ']' : !next(']')) {
+            inGames = false;
+            return null;
+        }
+        firstGame = false;
+
+        StartGameInput startGame = null;
+        if (isNull()) {
+            return new StartGameInput();
+        }
+        expect('{');
+        if (peek() != '}') {
+            do {
+                String field = readString();
+                expect(':');
+                if (field.equals("startGame")) {
+                    startGame = readStartGame();
+                } else if (field.equals("actions")) {
+                    readActions(actions);
+                } else {
+                    skipValue();
+                }
+            } while (next('}'));
+        } else {
+            pos++;
+        }
+        if (startGame == null) {
+            return new StartGameInput();
+        }
+        return startGame;
+    }
+
+    /**
+     * @param actions the columns receiving the actions
+     * @throws IOException in case of exceptions to reading
+     */
+    private void readActions(final ActionColumns actions) throws IOException {
+        if (isNull()) {
+            return;
+        }
+        expect('[');
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+        do {
+            int action = actions.append();
+            if (isNull()) {
+                continue;
+            }
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+                continue;
+            }
+            do {
+                scanString();
+                int field = stringEscaped ? ACTION_FIELDS.find(decode())
+                        : ACTION_FIELDS.find(buffer, stringStart, stringLength);
+                expect(':');
+                readActionField(actions, action, field);
+            } while (next('}'));
+        } while (next(']'));
+    }
+
+    /**
+     * @param actions the columns receiving the action
+     * @param action the index of the action
+     * @param field the field of the action, PerfectHash.MISSING if unknown
+     * @throws IOException in case of exceptions to reading
+     */
+    private void readActionField(final ActionColumns actions, final int action,
+                                 final int field) throws IOException {
+        switch (field) {
+            case FIELD_COMMAND:
+                if (isNull()) {
+                    actions.set(ActionColumns.COMMAND, action, PerfectHash.MISSING);
+                } else {
+                    scanString();
+                    actions.set(ActionColumns.COMMAND, action, stringEscaped
+                            ? commands.find(decode())
+                            : commands.find(buffer, stringStart, stringLength));
+                }
+                break;
+            case FIELD_HAND_IDX:
+                actions.set(ActionColumns.HAND_IDX, action, readInt());
+                break;
+            case FIELD_CARD_ATTACKER:
+                readCoordinates(actions, action, ActionColumns.ATTACKER_X,
+                        ActionColumns.ATTACKER_Y, ActionColumns.HAS_ATTACKER);
+                break;
+            case FIELD_CARD_ATTACKED:
+                readCoordinates(actions, action, ActionColumns.ATTACKED_X,
+                        ActionColumns.ATTACKED_Y, ActionColumns.HAS_ATTACKED);
+                break;
+            case FIELD_AFFECTED_ROW:
+                actions.set(ActionColumns.AFFECTED_ROW, action, readInt());
+                break;
+            case FIELD_PLAYER_IDX:
+                actions.set(ActionColumns.PLAYER_IDX, action, readInt());
+                break;
+            case FIELD_X:
+                actions.set(ActionColumns.X, action, readInt());
+                break;
+            case FIELD_Y:
+                actions.set(ActionColumns.Y, action, readInt());
+                break;
+            default:
+                skipValue();
+                break;
+        }
+    }
+
+    /**
+     * @param actions the columns receiving the coordinates
+     * @param action the index of the action
+     * @param xField the column of the row
+     * @param yField the column of the column
+     * @param present the bit of POSITIONS telling the coordinates are there
+     * @throws IOException in case of exceptions to reading
+     */
+    private void readCoordinates(final ActionColumns actions, final int action,
+                                 final int xField, final int yField, final int present)
+            throws IOException {
+        actions.set(xField, action, 0);
+        actions.set(yField, action, 0);
+        int positions = actions.get(ActionColumns.POSITIONS, action) & ~present;
+        if (isNull()) {
+            actions.set(ActionColumns.POSITIONS, action, positions);
+            return;
+        }
+        actions.set(ActionColumns.POSITIONS, action, positions | present);
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        do {
+            String field = readString();
+            expect(':');
+            if (field.equals("x")) {
+                actions.set(xField, action, readInt());
+            } else if (field.equals("y")) {
+                actions.set(yField, action, readInt());
+            } else {
+                skipValue();
+            }
+        } while (next('}'));
+    }
+
+    /**
+     * @return the start of a game
+     * @throws IOException in case of exceptions to reading
+     */
+    private StartGameInput readStartGame() throws IOException {
+        if (isNull()) {
+            return null;
+        }
+        StartGameInput startGame = new StartGameInput();
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return startGame;
+        }
+        do {
+            String field = readString();
+            expect(':');
+            switch (field) {
+                case "playerOneDeckIdx":
+                    startGame.setPlayerOneDeckIdx(readInt());
+                    break;
+                case "playerTwoDeckIdx":
+                    startGame.setPlayerTwoDeckIdx(readInt());
+                    break;
+                case "shuffleSeed":
+                    startGame.setShuffleSeed(readInt());
+                    break;
+                case "playerOneHero":
+                    startGame.setPlayerOneHero(readCard());
+                    break;
+                case "playerTwoHero":
+                    startGame.setPlayerTwoHero(readCard());
+                    break;
+                case "startingPlayer":
+                    startGame.setStartingPlayer(readInt());
+                    break;
+                default:
+                    skipValue();
+                    break;
+            }
+        } while (next('}'));
+        return startGame;
+    }
+
+    /**
+     * @return the decks of a player
+     * @throws IOException in case of exceptions to reading
+     */
+    private DecksInput readDecks() throws IOException {
+        if (isNull()) {
+            return null;
+        }
+        DecksInput decks = new DecksInput();
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return decks;
+        }
+        do {
+            String field = readString();
+            expect(':');
+            switch (field) {
+                case "nrCardsInDeck":
+                    decks.setNrCardsInDeck(readInt());
+                    break;
+                case "nrDecks":
+                    decks.setNrDecks(readInt());
+                    break;
+                case "decks":
+                    decks.setDecks(readDeckList());
+                    break;
+                default:
+                    skipValue();
+                    break;
+            }
+        } while (next('}'));
+        return decks;
+    }
+
+    /**
+     * @return the list of decks
+     * @throws IOException in case of exceptions to reading
+     */
+    private ArrayList<ArrayList<CardInput>> readDeckList() throws IOException {
+        if (isNull()) {
+            return null;
+        }
+        ArrayList<ArrayList<CardInput>> decks = new ArrayList<>();
+        expect('[');
+        if (peek() == ']') {
+            pos++;
+            return decks;
+        }
+        do {
+            if (isNull()) {
+                decks.add(null);
+                continue;
+            }
+            ArrayList<CardInput> deck = new ArrayList<>();
+            expect('[');
+            if (peek() == ']') {
+                pos++;
+            } else {
+                do {
+                    deck.add(readCard());
+                } while (next(']'));
+            }
+            decks.add(deck);
+        } while (next(']'));
+        return decks;
+    }
+
+    /**
+     * @return a card
+     * @throws IOException in case of exceptions to reading
+     */
+    private CardInput readCard() throws IOException {
+        if (isNull()) {
+            return null;
+        }
+        CardInput card = new CardInput();
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return card;
+        }
+        do {
+            String field = readString();
+            expect(':');
+            switch (field) {
+                case "mana":
+                    card.setMana(readInt());
+                    break;
+                case "attackDamage":
+                    card.setAttackDamage(readInt());
+                    break;
+                case "health":
+                    card.setHealth(readInt());
+                    break;
+                case "description":
+                    card.setDescription(readNullableString());
+                    break;
+                case "colors":
+                    card.setColors(readStrings());
+                    break;
+                case "name":
+                    card.setName(readNullableString());
+                    break;
+                default:
+                    skipValue();
+                    break;
+            }
+        } while (next('}'));
+        return card;
+    }
+
+    /**
+     * @return a list of strings
+     * @throws IOException in case of exceptions to reading
+     */
+    private ArrayList<String> readStrings() throws IOException {
+        if (isNull()) {
+            return null;
+        }
+        ArrayList<String> strings = new ArrayList<>();
+        expect('[');
+        if (peek() == ']') {
+            pos++;
+            return strings;
+        }
+        do {
+            strings.add(readNullableString());
+        } while (next(']'));
+        return strings;
+    }
+
+    /**
+     * @return a string, null for a null literal
+     * @throws IOException in case of exceptions to reading
+     */
+    private String readNullableString() throws IOException {
+        if (isNull()) {
+            return null;
+        }
+        return readString();
+    }
+
+    /**
+     * @return the string starting at the current position
+     * @throws IOException in case of exceptions to reading
+     */
+    private String readString() throws IOException {
+        scanString();
+        return decode();
+    }
+
+    /**
+     * Finds the bounds of the string starting at the current position and moves past it
+     * @throws IOException in case of exceptions to reading
+     */
+    private void scanString() throws IOException {
+        expect('"');
+        stringStart = pos;
+        stringEscaped = false;
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (b == '"') {
+                stringLength = pos - stringStart;
+                pos++;
+                return;
+            }
+            if (b == '\\') {
+                stringEscaped = true;
+                pos++;
+            }
+            pos++;
+        }
+        throw error("Unterminated string");
+    }
+
+    /**
+     * @return the last scanned string, with its escapes resolved
+     * @throws IOException in case of exceptions to reading
+     */
+    private String decode() throws IOException {
+        if (!stringEscaped) {
+            return utf8(stringStart, stringLength);
+        }
+        StringBuilder builder = new StringBuilder(stringLength);
+        int end = stringStart + stringLength;
+        int run = stringStart;
+        int i = stringStart;
+        while (i < end) {
+            if (buffer.get(i) != '\\') {
+                i++;
+                continue;
+            }
+            builder.append(utf8(run, i - run));
+            char escaped = (char) buffer.get(i + 1);
+            i += 2;
+            switch (escaped) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if (i + UNICODE_DIGITS > end) {
+                        throw error("Truncated unicode escape");
+                    }
+                    int code = 0;
+                    for (int digit = 0; digit < UNICODE_DIGITS; digit++) {
+                        int value = Character.digit((char) buffer.get(i + digit), HEX);
+                        if (value < 0) {
+                            throw error("Invalid unicode escape");
+                        }
+                        code = code * HEX + value;
+                    }
+                    builder.append((char) code);
+                    i += UNICODE_DIGITS;
+                    break;
+                default:
+                    builder.append(escaped);
+                    break;
+            }
+            run = i;
+        }
+        builder.append(utf8(run, end - run));
+        return builder.toString();
+    }
+
+    /**
+     * @param start the index of the first byte
+     * @param length the number of bytes
+     * @return the bytes decoded as UTF-8
+     */
+    private String utf8(final int start, final int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a number, a null literal reading as 0 and a fraction being truncated
+     * @return the number starting at the current position
+     * @throws IOException in case of exceptions to reading
+     */
+    private int readInt() throws IOException {
+        if (isNull()) {
+            return 0;
+        }
+        int start = pos;
+        boolean negative = false;
+        if (pos < limit && buffer.get(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        long value = 0;
+        int digits = pos;
+        while (pos < limit && buffer.get(pos) >= '0' && buffer.get(pos) <= '9') {
+            value = value * DECIMAL + (buffer.get(pos) - '0');
+            pos++;
+        }
+        if (pos == digits) {
+            throw error("Expected a number");
+        }
+        if (pos < limit && isFraction(buffer.get(pos))) {
+            while (pos < limit && (isFraction(buffer.get(pos)) || isDigit(buffer.get(pos)))) {
+                pos++;
+            }
+            return (int) Double.parseDouble(utf8(start, pos - start));
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * @param b a byte
+     * @return true if the byte is a decimal digit
+     */
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * @param b a byte
+     * @return true if the byte continues a number with a fraction or an exponent
+     */
+    private static boolean isFraction(final byte b) {
+        return b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-';
+    }
+
+    /**
+     * Skips the value starting at the current position
+     * @throws IOException in case of exceptions to reading
+     */
+    private void skipValue() throws IOException {
+        byte first = peek();
+        if (first == '"') {
+            scanString();
+            return;
+        }
+        if (first != '{' && first != '[') {
+            while (pos < limit) {
+                byte b = buffer.get(pos);
+                if (b == ',' || b == '}' || b == ']' || b <= ' ') {
+                    return;
+                }
+                pos++;
+            }
+            return;
+        }
+        int depth = 0;
+        do {
+            byte b = peek();
+            if (b == '"') {
+                scanString();
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+            pos++;
+        } while (depth > 0);
+    }
+
+    /**
+     * Consumes a null literal if there is one at the current position
+     * @return true if a null literal was consumed
+     * @throws IOException if the literal is not null
+     */
+    private boolean isNull() throws IOException {
+        if (peek() != 'n') {
+            return false;
+        }
+        for (char c : "null".toCharArray()) {
+            if (pos >= limit || buffer.get(pos) != c) {
+                throw error("Expected null");
+            }
+            pos++;
+        }
+        return true;
+    }
+
+    /**
+     * Consumes the separator after a member of an object or an array
+     * @param close the byte closing the object or the array
+     * @return true if another member follows, false if the closing byte was consumed
+     * @throws IOException in case of exceptions to reading
+     */
+    private boolean next(final char close) throws IOException {
+        byte b = peek();
+        pos++;
+        if (b == ',') {
+            return true;
+        }
+        if (b == close) {
+            return false;
+        }
+        throw error("Expected ',' or '" + close + "'");
+    }
+
+    /**
+     * @param expected the byte expected at the current position, after any whitespace
+     * @throws IOException if another byte is found
+     */
+    private void expect(final char expected) throws IOException {
+        if (peek() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    /**
+     * Skips whitespace
+     * @return the byte at the current position
+     * @throws IOException at the end of the file
+     */
+    private byte peek() throws IOException {
+        while (pos < limit && buffer.get(pos) <= ' ') {
+            pos++;
+        }
+        if (pos == limit) {
+            throw error("Unexpected end of input");
+        }
+        return buffer.get(pos);
+    }
+
+    /**
+     * @param message what went wrong
+     * @return the exception to be thrown, pointing at the current position
+     */
+    private IOException error(final String message) {
+        return new IOException(message + " at offset " + pos + ".");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,112 @@
+package org.poo.fileio;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A collision free hash table over a fixed set of names, looked up directly on the UTF-8
+ * bytes of a candidate. The seed of the hash is searched when the table is built, so a
+ * lookup is one hash, one probe and one comparison of the bytes.
+ */
+public final class PerfectHash {
+    public static final int MISSING = -1;
+    private static final int MULTIPLIER = 31;
+    private static final int SHIFT = 16;
+    private static final int MAX_SEEDS = 1 << 12;
+
+    private final byte[][] keys;
+    private final int[] table;
+    private final int mask;
+    private final int seed;
+
+    /**
+     * Builds the table, the id of a name being its index in the array
+     * @param names distinct names
+     */
+    public PerfectHash(final String[] names) {
+        keys = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+        int size = 2;
+        while (size < names.length * 2) {
+            size <<= 1;
+        }
+        while (true) {
+            int[] candidate = new int[size];
+            for (int s = 0; s < MAX_SEEDS; s++) {
+                if (fill(candidate, s)) {
+                    table = candidate;
+                    mask = size - 1;
+                    seed = s;
+                    return;
+                }
+            }
+            size <<= 1;
+        }
+    }
+
+    /**
+     * @param candidate the table to be filled
+     * @param candidateSeed the seed to be tried
+     * @return true if no two names land in the same place
+     */
+    private boolean fill(final int[] candidate, final int candidateSeed) {
+        Arrays.fill(candidate, MISSING);
+        for (int i = 0; i < keys.length; i++) {
+            int index = hash(ByteBuffer.wrap(keys[i]), 0, keys[i].length, candidateSeed)
+                    & (candidate.length - 1);
+            if (candidate[index] != MISSING) {
+                return false;
+            }
+            candidate[index] = i;
+        }
+        return true;
+    }
+
+    /**
+     * @param buffer the bytes
+     * @param start the index of the first byte
+     * @param length the number of bytes
+     * @param hashSeed the seed
+     * @return the hash of the bytes
+     */
+    private static int hash(final ByteBuffer buffer, final int start, final int length,
+                            final int hashSeed) {
+        int h = hashSeed;
+        for (int i = start; i < start + length; i++) {
+            h = h * MULTIPLIER + buffer.get(i);
+        }
+        return h ^ (h >>> SHIFT);
+    }
+
+    /**
+     * @param buffer the buffer holding the candidate
+     * @param start the index of its first byte
+     * @param length its length in bytes
+     * @return the id of the name with the same bytes, MISSING if there is none
+     */
+    public int find(final ByteBuffer buffer, final int start, final int length) {
+        int id = table[hash(buffer, start, length, seed) & mask];
+        if (id == MISSING || keys[id].length != length) {
+            return MISSING;
+        }
+        byte[] key = keys[id];
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != key[i]) {
+                return MISSING;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * @param name the candidate
+     * @return the id of the name, MISSING if there is none
+     */
+    public int find(final String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        return find(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+}
@@ -0,0 +1,62 @@
+package org.poo.fileio;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The layout of a binary replay, in order:
+ * <ul>
+ * <li>the magic bytes and the version;</li>
+ * <li>the SHA-256 digest of the JSON input the replay was compiled from, 32 raw bytes;</li>
+ * <li>the command table, the names the command ids of the file refer to;</li>
+ * <li>the decks of both players;</li>
+ * <li>the games, each one a GAME marker, the start record, the number of actions and the
+ * action records, followed by the END marker.</li>
+ * </ul>
+ * An action record is a one byte command id, NO_COMMAND if the action has none, then a
+ * varint mask of the fields that are not 0 and the values of those fields, in the order of
+ * the ActionColumns fields. Every integer is a zigzag varint, every string or list is
+ * prefixed by its size plus one, 0 standing for null, and every card by a presence byte.
+ */
+public final class ReplayFormat {
+    public static final int MAGIC = 0x47575250;
+    public static final int VERSION = 3;
+    public static final String DIGEST = "SHA-256";
+    public static final int DIGEST_BYTES = 32;
+    public static final int GAME = 1;
+    public static final int END = 0;
+    public static final int NO_COMMAND = 0xFF;
+    public static final String EXTENSION = ".replay";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * for coding style
+     */
+    private ReplayFormat() {
+    }
+
+    /**
+     * @param json an input file
+     * @return the digest of its content, as written in the header of its replays
+     * @throws IOException in case of exceptions to reading
+     */
+    public static byte[] digest(final File json) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM supports " + DIGEST + ".", e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(json)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+}
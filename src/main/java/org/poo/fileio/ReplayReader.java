@@ -0,0 +1,236 @@
+package org.poo.fileio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Loads a binary replay, see ReplayFormat for the layout. The file is read with a single
+ * sequential read and decoded from memory; the actions go straight into the columns.
+ * The command ids of the file are translated through its own command table, so a replay
+ * stays valid when the engine's commands are reordered.
+ */
+public final class ReplayReader implements GameSource {
+    private static final int SEVEN_BITS = 0x7F;
+    private static final int CONTINUATION = 0x80;
+    private static final int BITS_PER_BYTE = 7;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int INT_BYTES = 4;
+
+    private final byte[] bytes;
+    private final byte[] source;
+    private final int[] commands;
+    private final Input input = new Input();
+    private int pos;
+    private boolean ended;
+
+    /**
+     * Reads the file and decodes its header and decks
+     * @param file the replay file
+     * @param commandNames the command names, the id of a command being its index
+     * @throws IOException if the file is not a replay of a known version
+     */
+    public ReplayReader(final File file, final String[] commandNames) throws IOException {
+        bytes = Files.readAllBytes(file.toPath());
+        int magic = 0;
+        for (int i = 0; i < INT_BYTES; i++) {
+            magic = (magic << Byte.SIZE) | readByte();
+        }
+        if (magic != ReplayFormat.MAGIC) {
+            throw new IOException(file + " is not a replay.");
+        }
+        int version = readVarint();
+        if (version != ReplayFormat.VERSION) {
+            throw new IOException(file + " has the unsupported replay version " + version + ".");
+        }
+        if (ReplayFormat.DIGEST_BYTES > bytes.length - pos) {
+            throw error("Truncated header");
+        }
+        source = Arrays.copyOfRange(bytes, pos, pos + ReplayFormat.DIGEST_BYTES);
+        pos += ReplayFormat.DIGEST_BYTES;
+
+        PerfectHash names = new PerfectHash(commandNames);
+        commands = new int[readVarint()];
+        for (int i = 0; i < commands.length; i++) {
+            String name = readString();
+            commands[i] = name == null ? PerfectHash.MISSING : names.find(name);
+        }
+        input.setPlayerOneDecks(readDecks());
+        input.setPlayerTwoDecks(readDecks());
+    }
+
+    /**
+     * @return the digest of the JSON input the replay was compiled from
+     */
+    public byte[] getSource() {
+        return source.clone();
+    }
+
+    @Override
+    public Input getInput() {
+        return input;
+    }
+
+    @Override
+    public StartGameInput nextGame(final ActionColumns actions) throws IOException {
+        actions.clear();
+        if (ended || readByte() == ReplayFormat.END) {
+            ended = true;
+            return null;
+        }
+        StartGameInput startGame = new StartGameInput();
+        startGame.setPlayerOneDeckIdx(readInt());
+        startGame.setPlayerTwoDeckIdx(readInt());
+        startGame.setShuffleSeed(readInt());
+        startGame.setPlayerOneHero(readCard());
+        startGame.setPlayerTwoHero(readCard());
+        startGame.setStartingPlayer(readInt());
+
+        int size = readVarint();
+        for (int i = 0; i < size; i++) {
+            int action = actions.append();
+            int command = readByte();
+            if (command != ReplayFormat.NO_COMMAND) {
+                if (command >= commands.length) {
+                    throw error("Unknown command id " + command);
+                }
+                actions.set(ActionColumns.COMMAND, action, commands[command]);
+            }
+            int mask = readVarint();
+            for (int field = ActionColumns.HAND_IDX; field < ActionColumns.FIELDS; field++) {
+                if ((mask & (1 << field)) != 0) {
+                    actions.set(field, action, readInt());
+                }
+            }
+        }
+        return startGame;
+    }
+
+    /**
+     * @return the decks of a player
+     * @throws IOException in case of exceptions to reading
+     */
+    private DecksInput readDecks() throws IOException {
+        if (readByte() == 0) {
+            return null;
+        }
+        DecksInput decks = new DecksInput();
+        decks.setNrCardsInDeck(readInt());
+        decks.setNrDecks(readInt());
+        int count = readVarint();
+        if (count == 0) {
+            return decks;
+        }
+        ArrayList<ArrayList<CardInput>> list = new ArrayList<>(count - 1);
+        for (int i = 1; i < count; i++) {
+            int cards = readVarint();
+            if (cards == 0) {
+                list.add(null);
+                continue;
+            }
+            ArrayList<CardInput> deck = new ArrayList<>(cards - 1);
+            for (int j = 1; j < cards; j++) {
+                deck.add(readCard());
+            }
+            list.add(deck);
+        }
+        decks.setDecks(list);
+        return decks;
+    }
+
+    /**
+     * @return a card, may be null
+     * @throws IOException in case of exceptions to reading
+     */
+    private CardInput readCard() throws IOException {
+        if (readByte() == 0) {
+            return null;
+        }
+        CardInput card = new CardInput();
+        card.setMana(readInt());
+        card.setAttackDamage(readInt());
+        card.setHealth(readInt());
+        card.setDescription(readString());
+        int count = readVarint();
+        if (count != 0) {
+            ArrayList<String> colors = new ArrayList<>(count - 1);
+            for (int i = 1; i < count; i++) {
+                colors.add(readString());
+            }
+            card.setColors(colors);
+        }
+        card.setName(readString());
+        return card;
+    }
+
+    /**
+     * @return a string, may be null
+     * @throws IOException in case of exceptions to reading
+     */
+    private String readString() throws IOException {
+        int length = readVarint();
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > bytes.length - pos) {
+            throw error("Truncated string");
+        }
+        String string = new String(bytes, pos, length - 1, StandardCharsets.UTF_8);
+        pos += length - 1;
+        return string;
+    }
+
+    /**
+     * @return a signed integer stored as a zigzag varint
+     * @throws IOException in case of exceptions to reading
+     */
+    private int readInt() throws IOException {
+        int value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return an integer stored as a varint
+     * @throws IOException in case of exceptions to reading
+     */
+    private int readVarint() throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= Integer.SIZE) {
+                throw error("Malformed varint");
+            }
+            b = readByte();
+            value |= (b & SEVEN_BITS) << shift;
+            shift += BITS_PER_BYTE;
+        } while ((b & CONTINUATION) != 0);
+        return value;
+    }
+
+    /**
+     * @return the next byte, as an unsigned value
+     * @throws IOException at the end of the file
+     */
+    private int readByte() throws IOException {
+        if (pos == bytes.length) {
+            throw error("Unexpected end of replay");
+        }
+        return bytes[pos++] & BYTE_MASK;
+    }
+
+    /**
+     * @param message what went wrong
+     * @return the exception to be thrown, pointing at the current position
+     */
+    private IOException error(final String message) {
+        return new IOException(message + " at offset " + pos + ".");
+    }
+
+    @Override
+    public void close() {
+    }
+}
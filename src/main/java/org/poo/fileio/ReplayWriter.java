@@ -0,0 +1,185 @@
+package org.poo.fileio;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a binary replay, see ReplayFormat for the layout.
+ */
+public final class ReplayWriter implements Closeable {
+    private static final int SEVEN_BITS = 0x7F;
+    private static final int CONTINUATION = 0x80;
+    private static final int BITS_PER_BYTE = 7;
+    private static final int SIGN_SHIFT = 31;
+
+    private final DataOutputStream out;
+
+    /**
+     * Creates the file and writes the header
+     * @param file the replay file
+     * @param commandNames the command names, the id of a command being its index
+     * @param input the input holding the decks of both players
+     * @param source the digest of the JSON input, see ReplayFormat.digest
+     * @throws IOException in case of exceptions to writing
+     */
+    public ReplayWriter(final File file, final String[] commandNames, final Input input,
+                        final byte[] source) throws IOException {
+        if (commandNames.length >= ReplayFormat.NO_COMMAND) {
+            throw new IOException("Too many commands for a one byte command id.");
+        }
+        if (source.length != ReplayFormat.DIGEST_BYTES) {
+            throw new IOException("The digest of the input is not " + ReplayFormat.DIGEST
+                    + ".");
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        out.writeInt(ReplayFormat.MAGIC);
+        writeVarint(ReplayFormat.VERSION);
+        out.write(source);
+        writeVarint(commandNames.length);
+        for (String name : commandNames) {
+            writeString(name);
+        }
+        writeDecks(input.getPlayerOneDecks());
+        writeDecks(input.getPlayerTwoDecks());
+    }
+
+    /**
+     * @param startGame the start of the game
+     * @param actions the actions of the game
+     * @throws IOException in case of exceptions to writing
+     */
+    public void writeGame(final StartGameInput startGame, final ActionColumns actions)
+            throws IOException {
+        out.writeByte(ReplayFormat.GAME);
+        writeInt(startGame.getPlayerOneDeckIdx());
+        writeInt(startGame.getPlayerTwoDeckIdx());
+        writeInt(startGame.getShuffleSeed());
+        writeCard(startGame.getPlayerOneHero());
+        writeCard(startGame.getPlayerTwoHero());
+        writeInt(startGame.getStartingPlayer());
+
+        writeVarint(actions.size());
+        for (int action = 0; action < actions.size(); action++) {
+            int command = actions.get(ActionColumns.COMMAND, action);
+            out.writeByte(command == PerfectHash.MISSING ? ReplayFormat.NO_COMMAND : command);
+            int mask = 0;
+            for (int field = ActionColumns.HAND_IDX; field < ActionColumns.FIELDS; field++) {
+                if (actions.get(field, action) != 0) {
+                    mask |= 1 << field;
+                }
+            }
+            writeVarint(mask);
+            for (int field = ActionColumns.HAND_IDX; field < ActionColumns.FIELDS; field++) {
+                if ((mask & (1 << field)) != 0) {
+                    writeInt(actions.get(field, action));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param decks the decks of a player
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeDecks(final DecksInput decks) throws IOException {
+        out.writeBoolean(decks != null);
+        if (decks == null) {
+            return;
+        }
+        writeInt(decks.getNrCardsInDeck());
+        writeInt(decks.getNrDecks());
+        writeSize(decks.getDecks());
+        if (decks.getDecks() == null) {
+            return;
+        }
+        for (List<CardInput> deck : decks.getDecks()) {
+            writeSize(deck);
+            if (deck != null) {
+                for (CardInput card : deck) {
+                    writeCard(card);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param card a card, may be null
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeCard(final CardInput card) throws IOException {
+        out.writeBoolean(card != null);
+        if (card == null) {
+            return;
+        }
+        writeInt(card.getMana());
+        writeInt(card.getAttackDamage());
+        writeInt(card.getHealth());
+        writeString(card.getDescription());
+        writeSize(card.getColors());
+        if (card.getColors() != null) {
+            for (String color : card.getColors()) {
+                writeString(color);
+            }
+        }
+        writeString(card.getName());
+    }
+
+    /**
+     * @param list a list, may be null
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeSize(final List<?> list) throws IOException {
+        writeVarint(list == null ? 0 : list.size() + 1);
+    }
+
+    /**
+     * @param string a string, may be null
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeString(final String string) throws IOException {
+        if (string == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1);
+        out.write(bytes);
+    }
+
+    /**
+     * @param value a signed integer, written as a zigzag varint
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeInt(final int value) throws IOException {
+        writeVarint((value << 1) ^ (value >> SIGN_SHIFT));
+    }
+
+    /**
+     * @param value an integer read as unsigned
+     * @throws IOException in case of exceptions to writing
+     */
+    private void writeVarint(final int value) throws IOException {
+        int rest = value;
+        while ((rest & ~SEVEN_BITS) != 0) {
+            out.writeByte((rest & SEVEN_BITS) | CONTINUATION);
+            rest >>>= BITS_PER_BYTE;
+        }
+        out.writeByte(rest);
+    }
+
+    /**
+     * Writes the END marker and closes the file
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        out.writeByte(ReplayFormat.END);
+        out.close();
+    }
+}
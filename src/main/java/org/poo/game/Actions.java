@@ -1,104 +1,100 @@
 package org.poo.game;
 
-import org.poo.hero.HeroCard;
 import org.poo.players.Card;
-import org.poo.players.Deck;
+import org.poo.players.CardType;
 import org.poo.players.Player;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.output.OutputSink;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.poo.fileio.Coordinates;
 
-import java.util.ArrayList;
-
-import lombok.Getter;
-import lombok.Setter;
-
-@Getter
-@Setter
 public final class Actions {
-    private final String command;
-    private final int handIdx;
-    private final Coordinates cardAttacker;
-    private final Coordinates cardAttacked;
-    private final int affectedRow;
-    private final int playerIdx;
-    private final int x;
-    private final int y;
     public static final int ZERO = 0;
     public static final int ONE = 1;
     public static final int TWO = 2;
     public static final int FOUR = 4;
     public static final int FIVE = 5;
+    private static final String FROZEN = "Attacker card is frozen.";
+    private static final String ALREADY_ATTACKED = "Attacker card has already attacked this turn.";
+    private static final String NOT_ENEMY = "Attacked card does not belong to the enemy.";
+    private static final String NOT_TANK = "Attacked card is not of type 'Tank'.";
+    private static final MinionAbility[] MINION_ABILITIES =
+            new MinionAbility[CardType.count()];
+    private static final HeroAbility[] HERO_ABILITIES = new HeroAbility[CardType.count()];
+
+    private final ResultBuilder results;
+    private final CardNodes cards;
+    private final Journal journal;
+
+    static {
+        MINION_ABILITIES[CardType.THE_RIPPER.ordinal()] = (board, attacker, attacked) -> {
+            if (board.getAttack(attacked) < 2) {
+                board.setAttack(attacked, 0);
+            } else {
+                int damage = board.getAttack(attacked);
+                board.setAttack(attacked, damage - 2);
+            }
+        };
+        MINION_ABILITIES[CardType.MIRAJ.ordinal()] = (board, attacker, attacked) -> {
+            int health = board.getHealth(attacker);
+            board.setHealth(attacker, board.getHealth(attacked));
+            board.setHealth(attacked, health);
+        };
+        MINION_ABILITIES[CardType.THE_CURSED_ONE.ordinal()] = (board, attacker, attacked) -> {
+            if (board.getAttack(attacked) == ZERO) {
+                board.remove(attacked);
+            } else {
+                int health = board.getHealth(attacked);
+                board.setHealth(attacked, board.getAttack(attacked));
+                board.setAttack(attacked, health);
+            }
+        };
+        MINION_ABILITIES[CardType.DISCIPLE.ordinal()] = (board, attacker, attacked)
+                -> board.setHealth(attacked, board.getHealth(attacked) + TWO);
+
+        HERO_ABILITIES[CardType.LORD_ROYCE.ordinal()] = (board, row) -> board.freezeRow(row);
+        HERO_ABILITIES[CardType.EMPRESS_THORINA.ordinal()] = (board, row) -> {
+            int maxHealthColumn = board.getMaxHealthColumn(row);
+            if (maxHealthColumn == Board.EMPTY
+                    || board.getHealth(Board.slot(row, maxHealthColumn)) <= ZERO) {
+                board.remove(ZERO);
+            } else {
+                board.remove(Board.slot(row, maxHealthColumn));
+            }
+        };
+        HERO_ABILITIES[CardType.GENERAL_KOCIORAW.ordinal()] = (board, row) -> {
+            for (int i = ZERO; i < board.getOccupied(row); i++) {
+                int slot = Board.slot(row, i);
+                board.setAttack(slot, board.getAttack(slot) + ONE);
+            }
+        };
+        HERO_ABILITIES[CardType.KING_MUDFACE.ordinal()] = (board, row) -> {
+            for (int i = ZERO; i < board.getOccupied(row); i++) {
+                int slot = Board.slot(row, i);
+                board.setHealth(slot, board.getHealth(slot) + ONE);
+            }
+        };
+    }
 
-    public Actions(final String command, final int handIdx, final Coordinates cardAttacker,
-                   final Coordinates cardAttacked, final int affectedRow, final int playerIdx,
-                   final int x, final int y) {
-        this.command = command;
-        this.handIdx = handIdx;
-        this.cardAttacker = cardAttacker;
-        this.cardAttacked = cardAttacked;
-        this.affectedRow = affectedRow;
-        this.playerIdx = playerIdx;
-        this.x = x;
-        this.y = y;
+    /**
+     * @param type the type of a minion
+     * @return true if the minion has an ability to use
+     */
+    public static boolean hasMinionAbility(final CardType type) {
+        return MINION_ABILITIES[type.ordinal()] != null;
     }
 
     /**
-     * Executes the command given by the player
-     * @param commandToExecute the command given by the player
-     * @param action the action to be executed
-     * @param player the player that executes the command
-     * @param output the output of the command
-     * @param board the board of the game
+     * @param type the type of a hero
+     * @return true if the hero has an ability to use
      */
-    public void executeCommand(final String commandToExecute, final Actions action,
-                               final Player player, final ArrayNode output,
-                               final ArrayList<ArrayList<Card>> board) {
-        switch (commandToExecute) {
-            case "getPlayerDeck":
-                getPlayerDeck(player, output);
-                break;
-            case "getPlayerHero":
-                getPlayerHero(player, output);
-                break;
-            case "getPlayerTurn":
-                getPlayerTurn(player, output);
-                break;
-            case "getCardsInHand":
-                getCardsInHand(player, output);
-                break;
-            case "getPlayerMana":
-                getPlayerMana(player, output);
-                break;
-            case "getCardsOnTable":
-                getCardsOnTable(output, board);
-                break;
-            case "placeCard":
-                placeCard(action, player, output, board);
-                break;
-            case "cardUsesAttack":
-                cardUsesAttack(action, player, output, board);
-                break;
-            case "getCardAtPosition":
-                getCardAtPosition(action, output, board);
-                break;
-            case "cardUsesAbility":
-                cardUsesAbility(action, player, output, board);
-                break;
-            case "useAttackHero":
-                useAttackHero(action, player, output, board);
-                break;
-            case "useHeroAbility":
-                useHeroAbility(action, player, output, board);
-                break;
-            case "getFrozenCardsOnTable":
-                getFrozenCardsOnTable(output, board);
-                break;
+    public static boolean hasHeroAbility(final CardType type) {
+        return HERO_ABILITIES[type.ordinal()] != null;
+    }
 
-            default:
-                break;
-        }
+    public Actions(final ResultBuilder results, final Journal journal) {
+        this.results = results;
+        this.cards = new CardNodes(results);
+        this.journal = journal;
     }
 
     /**
@@ -106,19 +102,16 @@ public final class Actions {
      * @param player the player that has the deck
      * @param output the output of the command
      */
-    public void getPlayerDeck(final Player player, final ArrayNode output) {
+    public void getPlayerDeck(final Player player, final OutputSink output) {
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
+        ObjectNode result = results.object();
 
         result.put("command", "getPlayerDeck");
         result.put("playerIdx", player.getIdx());
 
         ArrayNode cardsArray = result.putArray("output");
-        Deck playerDeck = player.getDeck();
-
-        for (Card card : playerDeck.getCards()) {
-            cardsArray.add(outputCards(objectMapper, card));
+        for (Card card : player.getDeck().getRemaining()) {
+            cardsArray.add(cards.card(card));
         }
         output.add(result);
     }
@@ -128,30 +121,14 @@ public final class Actions {
      * @param player the player that has the hero
      * @param output the output of the command
      */
-    public void getPlayerHero(final Player player, final ArrayNode output) {
+    public void getPlayerHero(final Player player, final OutputSink output) {
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
+        ObjectNode result = results.object();
 
         result.put("command", "getPlayerHero");
         result.put("playerIdx", player.getIdx());
 
-        ObjectNode heroDetails = objectMapper.createObjectNode();
-
-        HeroCard playerHero = player.getPlayerHero();
-
-        heroDetails.put("mana", playerHero.getMana());
-        heroDetails.put("description", playerHero.getDescription());
-
-        ArrayNode colors = heroDetails.putArray("colors");
-        for (String color : playerHero.getColors()) {
-            colors.add(color);
-        }
-
-        heroDetails.put("name", playerHero.getName());
-        heroDetails.put("health", playerHero.getHealth());
-
-        result.set("output", heroDetails);
+        result.set("output", results.hero(player.getPlayerHero()));
 
         output.add(result);
     }
@@ -161,10 +138,9 @@ public final class Actions {
      * @param player the player that has the turn
      * @param output the output of the command
      */
-    public void getPlayerTurn(final Player player, final ArrayNode output) {
+    public void getPlayerTurn(final Player player, final OutputSink output) {
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
+        ObjectNode result = results.object();
 
         result.put("command", "getPlayerTurn");
         result.put("output", player.getIdx());
@@ -176,10 +152,9 @@ public final class Actions {
      * @param player the player that has the cards in hand
      * @param output the output of the command
      */
-    public void getCardsInHand(final Player player, final ArrayNode output) {
+    public void getCardsInHand(final Player player, final OutputSink output) {
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
+        ObjectNode result = results.object();
 
         result.put("command", "getCardsInHand");
         result.put("playerIdx", player.getIdx());
@@ -187,7 +162,7 @@ public final class Actions {
         ArrayNode cardsArray = result.putArray("output");
 
         for (Card card : player.getHand()) {
-            cardsArray.add(outputCards(objectMapper, card));
+            cardsArray.add(cards.card(card));
         }
         output.add(result);
     }
@@ -197,10 +172,9 @@ public final class Actions {
      * @param player the player that has the mana
      * @param output the output of the command
      */
-    public void getPlayerMana(final Player player, final ArrayNode output) {
+    public void getPlayerMana(final Player player, final OutputSink output) {
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
+        ObjectNode result = results.object();
 
         result.put("command", "getPlayerMana");
         result.put("playerIdx", player.getIdx());
@@ -213,24 +187,17 @@ public final class Actions {
      * @param output the output of the command
      * @param board the board of the game
      */
-    public void getCardsOnTable(final ArrayNode output, final ArrayList<ArrayList<Card>> board) {
+    public void getCardsOnTable(final OutputSink output, final Board board) {
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
+        ObjectNode result = results.object();
 
         result.put("command", "getCardsOnTable");
-        ArrayNode cardsOnTable = objectMapper.createArrayNode();
+        ArrayNode cardsOnTable = results.array();
 
         for (int i = ZERO; i < FOUR; i++) {
-                ArrayNode row = objectMapper.createArrayNode();
-                for (int j = ZERO; j < FIVE; j++) {
-                    Card card = board.get(i).get(j);
-
-                    if (card != null) {
-                        if (card.getName() != null) {
-                            row.add(outputCards(objectMapper, card));
-                        }
-                    }
+                ArrayNode row = results.array();
+                for (int j = ZERO; j < board.getOccupied(i); j++) {
+                    row.add(cards.card(board, Board.slot(i, j)));
                 }
                 cardsOnTable.add(row);
         }
@@ -244,26 +211,17 @@ public final class Actions {
      * @param output the output of the command
      * @param board the board of the game
      */
-    public void getFrozenCardsOnTable(final ArrayNode output,
-                                      final ArrayList<ArrayList<Card>> board) {
+    public void getFrozenCardsOnTable(final OutputSink output,
+                                      final Board board) {
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
+        ObjectNode result = results.object();
 
         result.put("command", "getFrozenCardsOnTable");
-        ArrayNode cardsOnTable = objectMapper.createArrayNode();
+        ArrayNode cardsOnTable = results.array();
 
-        for (int i = ZERO; i < FOUR; i++) {
-            for (int j = ZERO; j < FIVE; j++) {
-                Card card = board.get(i).get(j);
-                if (card != null) {
-                    if (card.getName() != null) {
-                        if (card.isFrozen()) {
-                            cardsOnTable.add(outputCards(objectMapper, card));
-                        }
-                    }
-                }
-            }
+        for (int frozen = board.getFrozenMask(); frozen != ZERO; frozen &= frozen - ONE) {
+            int slot = Integer.numberOfTrailingZeros(frozen);
+            cardsOnTable.add(cards.card(board, slot));
         }
         result.set("output", cardsOnTable);
         output.add(result);
@@ -271,123 +229,90 @@ public final class Actions {
 
     /**
      * Places a card on the table
-     * @param action the action to be executed
+     * @param handIdx the index of the card in the player's hand
      * @param player the player that executes the command
      * @param output the output of the command
      * @param board the board of the game
      */
-    public void placeCard(final Actions action, final Player player,
-                          final ArrayNode output, final ArrayList<ArrayList<Card>> board) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
-
-        int actionHandIdx = action.getHandIdx();
-        Card card = new Card();
-        Card emptyCard = new Card();
-
-        result.put("command", "placeCard");
-        result.put("handIdx", action.getHandIdx());
-
-        if (actionHandIdx >= ZERO) {
-            card = player.getHand().get(actionHandIdx);
-        }
-
-        if (card.getName() == null) {
+    public void placeCard(final int handIdx, final Player player,
+                          final OutputSink output, final Board board) {
+        if (handIdx < ZERO) {
             return;
         }
 
+        Card card = player.getHand().get(handIdx);
+
         if (player.getMana() < card.getMana()) {
-            result.put("error", "Not enough mana to place card on table.");
-            output.add(result);
+            if (output.keepsResults()) {
+                ObjectNode result = results.object();
+                result.put("command", "placeCard");
+                result.put("handIdx", handIdx);
+                result.put("error", "Not enough mana to place card on table.");
+                output.add(result);
+            }
             return;
         }
 
-        if (card.getName().equals("Sentinel")
-                || card.getName().equals("Berserker")
-                || card.getName().equals("Disciple")
-                || card.getName().equals("The Cursed One")) {
-
-                for (int i = ZERO; i < FIVE; i++) {
-                    if (board.get(player.getBackRow()).get(i) == emptyCard
-                            || board.get(player.getBackRow()).get(i).getName() == null) {
-                        board.get(player.getBackRow()).set(i, card);
-                        player.getHand().remove(action.getHandIdx());
-                        player.setMana(player.getMana() - card.getMana());
-                        break;
-                    }
-            }
-        } else if (card.getName().equals("Goliath")
-                || card.getName().equals("Warden")
-                || card.getName().equals("The Ripper")
-                || card.getName().equals("Miraj")) {
-
-                for (int i = ZERO; i < FIVE; i++) {
-                    if (board.get(player.getFrontRow()).get(i) == emptyCard
-                            || board.get(player.getFrontRow()).get(i).getName() == null) {
-                        board.get(player.getFrontRow()).set(i, card);
-                        player.getHand().remove(action.getHandIdx());
-                        player.setMana(player.getMana() - card.getMana());
-                        break;
-                    }
-            }
+        int row;
+        switch (card.getDefinition().getType().getPlacement()) {
+            case FRONT:
+                row = player.getFrontRow();
+                break;
+            case BACK:
+                row = player.getBackRow();
+                break;
+            default:
+                return;
+        }
 
+        if (board.place(row, card)) {
+            journal.removeFromHand(player, handIdx);
+            journal.setMana(player, player.getMana() - card.getMana());
         }
     }
 
     /**
      * Executes the attack command
-     * @param action the action to be executed
+     * @param attacker the attacker's slot
+     * @param attacked the attacked's slot
      * @param player the player that executes the command
      * @param output the output of the command
      * @param board the board of the game
      */
-    public void cardUsesAttack(final Actions action, final Player player,
-                               final ArrayNode output, final ArrayList<ArrayList<Card>> board) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
-
+    public void cardUsesAttack(final int attacker, final int attacked, final Player player,
+                               final OutputSink output, final Board board) {
         int enemyFrontRow;
 
-        Coordinates attacker = action.getCardAttacker();
-        Coordinates attacked = action.getCardAttacked();
-
-        Card attackerCard = board.get(attacker.getX()).get(attacker.getY());
-        Card attackedCard = board.get(attacked.getX()).get(attacked.getY());
-
-        if (attackerCard == null || attackedCard == null) {
-            return;
-        }
-
         if (player.getBackRow() == ZERO) {
             enemyFrontRow = TWO;
         } else {
             enemyFrontRow = ONE;
         }
 
-        if (allyCard(player, objectMapper, result, attacker, attacked, output)) {
-            result.put("command", "cardUsesAttack");
+        if (allyCard(player, attacked)) {
+            cardError(output, "cardUsesAttack", attacker, attacked, NOT_ENEMY);
             return;
         }
 
-        if (hasCardAttacked(attackerCard, objectMapper, result, attacker, attacked, output)) {
-            result.put("command", "cardUsesAttack");
+        if (hasCardAttacked(board, attacker)) {
+            cardError(output, "cardUsesAttack", attacker, attacked, ALREADY_ATTACKED);
             return;
         }
 
-        if (isCardFrozen(attackerCard, objectMapper, result, attacker, attacked, output)) {
-            result.put("command", "cardUsesAttack");
+        if (isCardFrozen(board, attacker)) {
+            cardError(output, "cardUsesAttack", attacker, attacked, FROZEN);
             return;
         }
 
-        if (checkTank(enemyFrontRow, objectMapper, result, attacker, attacked, output, board)) {
-            result.put("command", "cardUsesAttack");
+        if (checkTank(enemyFrontRow, attacked, board)) {
+            cardError(output, "cardUsesAttack", attacker, attacked, NOT_TANK);
             return;
         }
 
 
-        attackedCard.setHealth(attackedCard.getHealth() - attackerCard.getAttackDamage());
-        attackerCard.setHasAttacked(true);
-        if (attackedCard.getHealth() <= ZERO) {
+        board.setHealth(attacked, board.getHealth(attacked) - board.getAttack(attacker));
+        board.setAttacked(attacker);
+        if (board.isEmpty(attacked) || board.getHealth(attacked) <= ZERO) {
             eliminateCard(board, attacked);
         }
 
@@ -395,154 +320,110 @@ public final class Actions {
 
     /**
      * Outputs the card at a given position
-     * @param action the action to be executed
+     * @param xCoord the row of the position
+     * @param yCoord the column of the position
      * @param output the output of the command
      * @param board the board of the game
      */
-    public void getCardAtPosition(final Actions action, final ArrayNode output,
-                                  final ArrayList<ArrayList<Card>> board)  {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
-
-        int xCoord = action.getX();
-        int yCoord = action.getY();
+    public void getCardAtPosition(final int xCoord, final int yCoord, final OutputSink output,
+                                  final Board board)  {
+        ObjectNode result = results.object();
 
         result.put("command", "getCardAtPosition");
         result.put("x", xCoord);
         result.put("y", yCoord);
 
-        if (board.get(xCoord).get(yCoord) == null
-                || board.get(xCoord).get(yCoord).getName() == null) {
+        if (board.isEmpty(Board.slot(xCoord, yCoord))) {
             result.put("output", "No card available at that position.");
             output.add(result);
             return;
         }
 
-        Card card = board.get(xCoord).get(yCoord);
-
-        ObjectNode cardOutput = outputCards(objectMapper, card);
+        ObjectNode cardOutput = cards.card(board, Board.slot(xCoord, yCoord));
         result.set("output", cardOutput);
         output.add(result);
     }
 
     /**
      * Executes the ability of a card
-     * @param action the action to be executed
+     * @param attacker the attacker's slot
+     * @param attacked the attacked's slot
      * @param player the player that executes the command
      * @param output the output of the command
      * @param board the board of the game
      */
-    public void cardUsesAbility(final Actions action, final Player player,
-                                final ArrayNode output, final ArrayList<ArrayList<Card>> board) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
-
+    public void cardUsesAbility(final int attacker, final int attacked, final Player player,
+                                final OutputSink output, final Board board) {
         int enemyFrontRow;
 
-        Coordinates attacker = action.getCardAttacker();
-        Coordinates attacked = action.getCardAttacked();
-
-        Card attackerCard = board.get(attacker.getX()).get(attacker.getY());
-        Card attackedCard = board.get(attacked.getX()).get(attacked.getY());
-
-        if (attackerCard == null
-                || attackedCard == null
-                || attackedCard.getName() == null
-                || attackerCard.getName() == null) {
+        if (board.isEmpty(attacker) || board.isEmpty(attacked)) {
             return;
         }
 
+        CardType attackerType = board.getType(attacker);
+
         if (player.getBackRow() == ZERO) {
             enemyFrontRow = TWO;
         } else {
             enemyFrontRow = ONE;
         }
 
-        if (isCardFrozen(attackerCard, objectMapper, result, attacker, attacked, output)) {
-            result.put("command", "cardUsesAbility");
+        if (isCardFrozen(board, attacker)) {
+            cardError(output, "cardUsesAbility", attacker, attacked, FROZEN);
             return;
         }
 
-        if (hasCardAttacked(attackerCard, objectMapper, result, attacker, attacked, output)) {
-            result.put("command", "cardUsesAbility");
+        if (hasCardAttacked(board, attacker)) {
+            cardError(output, "cardUsesAbility", attacker, attacked, ALREADY_ATTACKED);
             return;
         }
 
-        if (attackerCard.getName().equals("Disciple")) {
-            if (attacked.getX() != player.getFrontRow() && attacked.getX() != player.getBackRow()) {
-                result.put("command", "cardUsesAbility");
-                outputCoordinates(objectMapper, result, attacker, attacked);
+        if (attackerType.getTarget() == CardType.Target.ALLY) {
+            if (Board.row(attacked) != player.getFrontRow()
+                    && Board.row(attacked) != player.getBackRow()) {
+                if (output.keepsResults()) {
+                    ObjectNode result = results.object();
+                    result.put("command", "cardUsesAbility");
+                    outputCoordinates(result, attacker, attacked);
 
-                result.put("error", "Attacked card does not belong to the current player.");
-                output.add(result);
+                    result.put("error", "Attacked card does not belong to the current player.");
+                    output.add(result);
+                }
                 return;
             }
-        } else if (allyCard(player, objectMapper, result, attacker, attacked, output)) {
-            result.put("command", "cardUsesAbility");
+        } else if (allyCard(player, attacked)) {
+            cardError(output, "cardUsesAbility", attacker, attacked, NOT_ENEMY);
             return;
         }
 
-        if (!attackerCard.getName().equals(("Disciple"))) {
-            if (checkTank(enemyFrontRow, objectMapper, result, attacker, attacked, output, board)) {
-                result.put("command", "cardUsesAbility");
+        if (attackerType.getTarget() != CardType.Target.ALLY) {
+            if (checkTank(enemyFrontRow, attacked, board)) {
+                cardError(output, "cardUsesAbility", attacker, attacked, NOT_TANK);
                 return;
             }
         }
 
-        if (attackerCard.getName().equals("The Ripper")) {
-            if (attackedCard.getAttackDamage() < 2) {
-                board.get(attacked.getX()).get(attacked.getY()).setAttackDamage(0);
-            } else {
-                int damage = attackedCard.getAttackDamage();
-                board.get(attacked.getX()).get(attacked.getY()).setAttackDamage(damage - 2);
-            }
-            attackerCard.setHasAttacked(true);
-        }
-
-        if (attackerCard.getName().equals("Miraj")) {
-            int health = attackerCard.getHealth();
-            attackerCard.setHealth(attackedCard.getHealth());
-            attackedCard.setHealth(health);
-            attackerCard.setHasAttacked(true);
-        }
-
-        if (attackerCard.getName().equals("The Cursed One")) {
-            if (attackedCard.getAttackDamage() == ZERO) {
-                eliminateCard(board, attacked);
-            } else {
-                int health = attackedCard.getHealth();
-                attackedCard.setHealth(attackedCard.getAttackDamage());
-                attackedCard.setAttackDamage(health);
-            }
-            attackerCard.setHasAttacked(true);
-        }
-
-        if (attackerCard.getName().equals("Disciple")) {
-            attackedCard.setHealth(attackedCard.getHealth() + TWO);
-            attackerCard.setHasAttacked(true);
+        MinionAbility ability = MINION_ABILITIES[attackerType.ordinal()];
+        if (ability != null) {
+            ability.use(board, attacker, attacked);
+            board.setAttacked(attacker);
         }
     }
 
     /**
      * Executes the attack command on the hero
-     * @param action the action to be executed
+     * @param attacker the attacker's slot
      * @param player the player that executes the command
      * @param output the output of the command
      * @param board the board of the game
      */
-    public void useAttackHero(final Actions action, final Player player,
-                              final ArrayNode output, final ArrayList<ArrayList<Card>> board) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
-
+    public void useAttackHero(final int attacker, final Player player,
+                              final OutputSink output, final Board board) {
         int enemyFrontRow;
 
-        Coordinates attacker = action.getCardAttacker();
-
-        Card attackerCard = board.get(attacker.getX()).get(attacker.getY());
         Card attackedCard = player.getPlayerHero();
 
-        if (attackerCard == null || attackedCard == null) {
+        if (attackedCard == null) {
             return;
         }
 
@@ -552,58 +433,40 @@ public final class Actions {
             enemyFrontRow = TWO;
         }
 
-        if (attackerCard.isFrozen()) {
-            result.put("command", "useAttackHero");
-            outputCoordinatesAttacker(objectMapper, result, attacker);
-            result.put("error", "Attacker card is frozen.");
-            output.add(result);
+        if (board.isFrozen(attacker)) {
+            heroAttackError(output, attacker, FROZEN);
             return;
         }
 
-        if (attackerCard.isHasAttacked()) {
-            result.put("command", "useAttackHero");
-            outputCoordinatesAttacker(objectMapper, result, attacker);
-            result.put("error", "Attacker card has already attacked this turn.");
-            output.add(result);
+        if (board.hasAttacked(attacker)) {
+            heroAttackError(output, attacker, ALREADY_ATTACKED);
             return;
         }
 
-        for (int i = ZERO; i < FIVE; i++) {
-            Card card = board.get(enemyFrontRow).get(i);
-            if (card != null && card.getName() != null) {
-                if (card.getName().equals("Goliath") || card.getName().equals("Warden")) {
-                    result.put("command", "useAttackHero");
-                    outputCoordinatesAttacker(objectMapper, result, attacker);
-                    result.put("error", "Attacked card is not of type 'Tank'.");
-                    output.add(result);
-                    return;
-                }
-            }
+        if (board.getTanks(enemyFrontRow) > ZERO) {
+            heroAttackError(output, attacker, NOT_TANK);
+            return;
         }
 
         int heroHealth = player.getPlayerHero().getHealth();
-        int damage = attackerCard.getAttackDamage();
+        int damage = board.getAttack(attacker);
 
-        player.getPlayerHero().setHealth(heroHealth - damage);
+        journal.setHeroHealth(player, heroHealth - damage);
         if (player.getPlayerHero().getHealth() <= ZERO) {
-            player.getPlayerHero().setDead(true);
+            journal.setHeroDead(player, true);
         }
-        attackerCard.setHasAttacked(true);
+        board.setAttacked(attacker);
     }
 
     /**
      * Executes the hero's ability
-     * @param action the action to be executed
+     * @param actionAffectedRow the row affected by the ability
      * @param player the player that executes the command
      * @param output the output of the command
      * @param board the board of the game
      */
-    public void useHeroAbility(final Actions action, final Player player,
-                               final ArrayNode output, final ArrayList<ArrayList<Card>> board) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        ObjectNode result = objectMapper.createObjectNode();
-
-        int actionAffectedRow = action.getAffectedRow();
+    public void useHeroAbility(final int actionAffectedRow, final Player player,
+                               final OutputSink output, final Board board) {
         Card attackerCard = player.getPlayerHero();
 
         if (attackerCard == null) {
@@ -611,285 +474,175 @@ public final class Actions {
         }
 
         if (player.getMana() < attackerCard.getMana()) {
-            result.put("affectedRow", actionAffectedRow);
-            result.put("command", "useHeroAbility");
-            result.put("error", "Not enough mana to use hero's ability.");
-            output.add(result);
+            heroAbilityError(output, actionAffectedRow, "Not enough mana to use hero's ability.");
             return;
         }
 
         if (attackerCard.isHasAttacked()) {
-            result.put("affectedRow", actionAffectedRow);
-            result.put("command", "useHeroAbility");
-            result.put("error", "Hero has already attacked this turn.");
-            output.add(result);
+            heroAbilityError(output, actionAffectedRow, "Hero has already attacked this turn.");
             return;
         }
 
-        if (attackerCard.getName().equals("Lord Royce")
-                || attackerCard.getName().equals("Empress Thorina")) {
+        CardType.Target target = attackerCard.getDefinition().getType().getTarget();
+        if (target == CardType.Target.ENEMY) {
             if (actionAffectedRow == player.getFrontRow()
                     || actionAffectedRow == player.getBackRow()) {
-                result.put("command", "useHeroAbility");
-                result.put("affectedRow", actionAffectedRow);
-                result.put("error", "Selected row does not belong to the enemy.");
-                output.add(result);
+                rowError(output, actionAffectedRow, "Selected row does not belong to the enemy.");
                 return;
             }
-
-            if (attackerCard.getName().equals("Lord Royce")) {
-
-                for (int i = ZERO; i < FIVE; i++) {
-                    Card card = board.get(actionAffectedRow).get(i);
-                    if (card != null && card.getName() != null) {
-                        board.get(actionAffectedRow).get(i).setFrozen(true);
-                    }
-                }
-            }
-
-            if (attackerCard.getName().equals("Empress Thorina")) {
-                int maxHealthCard = ZERO;
-                Coordinates coordinates = new Coordinates();
-                for (int i = ZERO; i < FIVE; i++) {
-                    Card card = board.get(actionAffectedRow).get(i);
-                    if (card != null && card.getName() != null) {
-                        if (maxHealthCard < card.getHealth()) {
-                            maxHealthCard = card.getHealth();
-                            coordinates.setX(actionAffectedRow);
-                            coordinates.setY(i);
-                        }
-                    }
-                }
-                eliminateCard(board, coordinates);
-            }
-        } else if (attackerCard.getName().equals("General Kocioraw")
-                || attackerCard.getName().equals("King Mudface")) {
+        } else if (target == CardType.Target.ALLY) {
             if (actionAffectedRow != player.getFrontRow()
                     && actionAffectedRow != player.getBackRow()) {
-                result.put("command", "useHeroAbility");
-                result.put("affectedRow", actionAffectedRow);
-                result.put("error", "Selected row does not belong to the current player.");
-                output.add(result);
+                rowError(output, actionAffectedRow,
+                        "Selected row does not belong to the current player.");
                 return;
             }
+        }
 
-            if (attackerCard.getName().equals("General Kocioraw")) {
-                for (int i = ZERO; i < FIVE; i++) {
-                    Card card = board.get(actionAffectedRow).get(i);
-                    if (card != null && card.getName() != null) {
-                        card.setAttackDamage(card.getAttackDamage() + ONE);
-                    }
-                }
-            }
-
-            if (attackerCard.getName().equals("King Mudface")) {
-                for (int i = ZERO; i < FIVE; i++) {
-                    Card card = board.get(actionAffectedRow).get(i);
-                    if (card != null && card.getName() != null) {
-                        card.setHealth(card.getHealth() + ONE);
-                    }
-                }
-            }
+        HeroAbility ability = HERO_ABILITIES[attackerCard.getDefinition().getType().ordinal()];
+        if (ability != null) {
+            ability.use(board, actionAffectedRow);
         }
-        player.setMana(player.getMana() - attackerCard.getMana());
-        attackerCard.setHasAttacked(true);
+        journal.setMana(player, player.getMana() - attackerCard.getMana());
+        journal.setHeroAttacked(player, true);
     }
 
     /**
      * Checks if the card is frozen
-     * @param card the card to be checked
-     * @param objectMapper the object mapper
-     * @param result the result of the command
-     * @param attacker the attacker's coordinates
-     * @param attacked the attacked's coordinates
-     * @param output the output of the command
+     * @param board the board of the game
+     * @param attacker the attacker's slot
      * @return true if the card is frozen, false otherwise
      */
-    public boolean isCardFrozen(final Card card, final ObjectMapper objectMapper,
-                                final ObjectNode result, final Coordinates attacker,
-                                final Coordinates attacked, final ArrayNode output) {
-        if (card.isFrozen()) {
-            outputCoordinates(objectMapper, result, attacker, attacked);
-            result.put("error", "Attacker card is frozen.");
-            output.add(result);
-            return true;
-        }
-
-        return false;
-
+    public boolean isCardFrozen(final Board board, final int attacker) {
+        return board.isFrozen(attacker);
     }
 
     /**
      * Checks if the card has attacked
-     * @param card the card to be checked
-     * @param objectMapper the object mapper
-     * @param result the result of the command
-     * @param attacker the attacker's coordinates
-     * @param attacked the attacked's coordinates
-     * @param output the output of the command
+     * @param board the board of the game
+     * @param attacker the attacker's slot
      * @return true if the card has attacked, false otherwise
      */
-    public boolean hasCardAttacked(final Card card, final ObjectMapper objectMapper,
-                                   final ObjectNode result, final Coordinates attacker,
-                                   final Coordinates attacked, final ArrayNode output) {
-        if (card.isHasAttacked()) {
-            outputCoordinates(objectMapper, result, attacker, attacked);
-            result.put("error", "Attacker card has already attacked this turn.");
-            output.add(result);
-            return true;
-        }
-
-        return false;
+    public boolean hasCardAttacked(final Board board, final int attacker) {
+        return board.hasAttacked(attacker);
     }
 
     /**
      * Checks if the card is an ally card
      * @param player the player that executes the command
-     * @param objectMapper the object mapper
-     * @param result the result of the command
-     * @param attacker the attacker's coordinates
-     * @param attacked the attacked's coordinates
-     * @param output the output of the command
+     * @param attacked the attacked's slot
      * @return true if the card is an ally card, false otherwise
      */
-    public boolean allyCard(final Player player, final ObjectMapper objectMapper,
-                            final ObjectNode result, final Coordinates attacker,
-                            final Coordinates attacked, final ArrayNode output) {
-        if (attacked.getX() == player.getFrontRow() || attacked.getX() == player.getBackRow()) {
-            outputCoordinates(objectMapper, result, attacker, attacked);
-
-            result.put("error", "Attacked card does not belong to the enemy.");
-            output.add(result);
-            return true;
-        }
-        return false;
+    public boolean allyCard(final Player player, final int attacked) {
+        return Board.row(attacked) == player.getFrontRow()
+                || Board.row(attacked) == player.getBackRow();
     }
 
     /**
      * Checks if the enemy has a tank card
      * @param enemyFrontRow the enemy's front row
-     * @param objectMapper the object mapper
-     * @param result the result of the command
-     * @param attacker the attacker's coordinates
-     * @param attacked the attacked's coordinates
-     * @param output the output of the command
+     * @param attacked the attacked's slot
      * @param board the board of the game
      * @return true if the enemy has a tank card, false otherwise
      */
-    public boolean checkTank(final int enemyFrontRow, final ObjectMapper objectMapper,
-                             final ObjectNode result, final Coordinates attacker,
-                             final Coordinates attacked, final ArrayNode output,
-                             final ArrayList<ArrayList<Card>> board) {
-        boolean checkTank = false;
-
-        for (int i = ZERO; i < FIVE; i++) {
-            Card card = board.get(enemyFrontRow).get(i);
-            if (card != null && card.getName() != null) {
-                if (card.getName().equals("Goliath")
-                        || card.getName().equals("Warden")) {
-                    checkTank = true;
-                    break;
-                }
-            }
-        }
+    public boolean checkTank(final int enemyFrontRow, final int attacked, final Board board) {
+        return board.getTanks(enemyFrontRow) > ZERO && !board.isEmpty(attacked)
+                && !board.isTank(attacked);
+    }
 
-        if (checkTank) {
-            Card attackedCard = board.get(attacked.getX()).get(attacked.getY());
-            if (board.get(attacked.getX()).get(attacked.getY()).getName() != null) {
-                if (!attackedCard.getName().equals("Goliath")
-                        && !attackedCard.getName().equals("Warden")) {
-                    outputCoordinates(objectMapper, result, attacker, attacked);
-                    result.put("error", "Attacked card is not of type 'Tank'.");
-                    output.add(result);
-                    return true;
-                }
-            }
+    /**
+     * Outputs the error of a command of a card aimed at another card. Like every error
+     * below, it is only built if the output keeps it, so that a command run for its
+     * outcome allocates nothing.
+     * @param output the output of the command
+     * @param command the name of the command
+     * @param attacker the attacker's slot
+     * @param attacked the attacked's slot
+     * @param error the error
+     */
+    private void cardError(final OutputSink output, final String command, final int attacker,
+                           final int attacked, final String error) {
+        if (!output.keepsResults()) {
+            return;
         }
-        return false;
+        ObjectNode result = results.object();
+        outputCoordinates(result, attacker, attacked);
+        result.put("error", error);
+        result.put("command", command);
+        output.add(result);
     }
 
     /**
-     * Eliminates a card from the board
-     * @param board the board of the game
-     * @param attacked the attacked's coordinates
+     * Outputs the error of an attack on the hero
+     * @param output the output of the command
+     * @param attacker the attacker's slot
+     * @param error the error
      */
-    private void eliminateCard(final ArrayList<ArrayList<Card>> board, final Coordinates attacked) {
-        board.get(attacked.getX()).get(attacked.getY()).setDead(true);
-        Card emptyCard = new Card();
-        board.get(attacked.getX()).set(attacked.getY(), emptyCard);
-        if (attacked.getY() != FOUR) {
-            if (board.get(attacked.getX()).get(attacked.getY() + ONE) != emptyCard) {
-                for (int i = attacked.getY() + ONE; i < FIVE; i++) {
-                    if (board.get(attacked.getX()).get(i) != emptyCard) {
-                        board.get(attacked.getX()).set(i - ONE, board.get(attacked.getX()).get(i));
-                    } else {
-                        board.get(attacked.getX()).set(i - ONE, emptyCard);
-                        break;
-                    }
-                }
-            } else {
-                board.get(attacked.getX()).set(attacked.getY(), emptyCard);
-            }
+    private void heroAttackError(final OutputSink output, final int attacker,
+                                 final String error) {
+        if (!output.keepsResults()) {
+            return;
         }
+        ObjectNode result = results.object();
+        result.put("command", "useAttackHero");
+        result.set("cardAttacker", results.coordinates(attacker));
+        result.put("error", error);
+        output.add(result);
     }
 
     /**
-     * Outputs the cards that are attacking and attacked
-     * @param objectMapper the object mapper
+     * Outputs the error of a hero ability the hero cannot use
+     * @param output the output of the command
+     * @param affectedRow the row affected by the ability
+     * @param error the error
      */
-    private ObjectNode outputCards(final ObjectMapper objectMapper, final Card card) {
-        if (card == null) {
-            return null;
+    private void heroAbilityError(final OutputSink output, final int affectedRow,
+                                  final String error) {
+        if (!output.keepsResults()) {
+            return;
         }
+        ObjectNode result = results.object();
+        result.put("affectedRow", affectedRow);
+        result.put("command", "useHeroAbility");
+        result.put("error", error);
+        output.add(result);
+    }
 
-        ObjectNode cards = objectMapper.createObjectNode();
-        cards.put("mana", card.getMana());
-        cards.put("attackDamage", card.getAttackDamage());
-        cards.put("health", card.getHealth());
-        cards.put("description", card.getDescription());
-
-        ArrayNode colors = cards.putArray("colors");
-        if (card.getColors() != null) {
-            for (String color : card.getColors()) {
-                colors.add(color);
-            }
+    /**
+     * Outputs the error of a hero ability used on the wrong row
+     * @param output the output of the command
+     * @param affectedRow the row affected by the ability
+     * @param error the error
+     */
+    private void rowError(final OutputSink output, final int affectedRow, final String error) {
+        if (!output.keepsResults()) {
+            return;
         }
-
-        cards.put("name", card.getName());
-        return cards;
+        ObjectNode result = results.object();
+        result.put("command", "useHeroAbility");
+        result.put("affectedRow", affectedRow);
+        result.put("error", error);
+        output.add(result);
     }
 
     /**
-     * Outputs the coordinates of the cards that are attacking and attacked
-     * @param objectMapper the object mapper
-     * @param result the result of the command
-     * @param attacker the attacker's coordinates
-     * @param attacked the attacked's coordinates
+     * Eliminates a card from the board
+     * @param board the board of the game
+     * @param attacked the attacked's slot
      */
-    private void outputCoordinates(final ObjectMapper objectMapper, final ObjectNode result,
-                                   final Coordinates attacker, final Coordinates attacked) {
-        ObjectNode attackerCoord = objectMapper.createObjectNode();
-        attackerCoord.put("x", attacker.getX());
-        attackerCoord.put("y", attacker.getY());
-        result.set("cardAttacker", attackerCoord);
-
-        ObjectNode attackedCoord = objectMapper.createObjectNode();
-        attackedCoord.put("x", attacked.getX());
-        attackedCoord.put("y", attacked.getY());
-        result.set("cardAttacked", attackedCoord);
+    private void eliminateCard(final Board board, final int attacked) {
+        board.remove(attacked);
     }
 
     /**
-     * Outputs the coordinates of the attacker
-     * @param objectMapper the object mapper
+     * Outputs the coordinates of the cards that are attacking and attacked
      * @param result the result of the command
-     * @param attacker the attacker's coordinates
+     * @param attacker the attacker's slot
+     * @param attacked the attacked's slot
      */
-    private void outputCoordinatesAttacker(final ObjectMapper objectMapper,
-                                           final ObjectNode result, final Coordinates attacker) {
-        ObjectNode attackerOutput = objectMapper.createObjectNode();
-        attackerOutput.put("x", attacker.getX());
-        attackerOutput.put("y", attacker.getY());
-        result.set("cardAttacker", attackerOutput);
+    private void outputCoordinates(final ObjectNode result,
+                                   final int attacker, final int attacked) {
+        result.set("cardAttacker", results.coordinates(attacker));
+        result.set("cardAttacked", results.coordinates(attacked));
     }
 }
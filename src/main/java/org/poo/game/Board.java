@@ -0,0 +1,692 @@
+package org.poo.game;
+
+import org.poo.players.Card;
+import org.poo.players.CardDefinition;
+import org.poo.players.CardRegistry;
+import org.poo.players.CardType;
+
+import java.util.Arrays;
+
+/**
+ * The 4x5 table stored as parallel primitive arrays indexed by row * COLUMNS + column.
+ * A card is stored by its id in the registry of the input the game was started from.
+ * Rows are kept compact: the cards of a row always occupy its first columns.
+ * Every row also keeps the column of its healthiest card up to date, so the rules that
+ * depend on it never scan the row. The frozen, has attacked and tank states are bit masks
+ * indexed by slot, and so is the set of slots whose card changed since it was last printed.
+ * The rules were written for rows holding a list of five cards, free columns holding an
+ * empty card, and the board keeps what that meant. An empty slot can be marked as having
+ * attacked, and only placing a card on it clears the mark. Removing a card shifts the
+ * columns after it to the left but leaves the last column as it was, so that its card, or
+ * empty card, then fills two columns. Such columns are linked to the one on their left, and
+ * a change to one of them is a change to all of them.
+ * While its journal is recording, every change is recorded so that it can be undone, and
+ * once a game starts hashing, every change also updates the hash of its state.
+ */
+public final class Board {
+    public static final int ROWS = 4;
+    public static final int COLUMNS = 5;
+    public static final int SLOTS = ROWS * COLUMNS;
+    public static final int EMPTY = -1;
+    public static final int ZERO = 0;
+    private static final int ONE_BIT = 1;
+    private static final int ROW_MASK = (ONE_BIT << COLUMNS) - ONE_BIT;
+    private static final int LAST = COLUMNS - 1;
+    private static final int ATTACKED_SHIFT = COLUMNS;
+    private static final int LINKED_SHIFT = COLUMNS + COLUMNS;
+
+    private final int[] type = new int[SLOTS];
+    private final int[] mana = new int[SLOTS];
+    private final int[] attack = new int[SLOTS];
+    private final int[] health = new int[SLOTS];
+    private final int[] occupied = new int[ROWS];
+    private final int[] maxHealth = new int[ROWS];
+    private int frozen;
+    private int attacked;
+    private int tanks;
+    private int linked;
+    private int dirty;
+    private final Journal journal;
+    private final CardRegistry cards;
+    private StateHasher hasher;
+
+    public Board(final CardRegistry cards) {
+        this(null, cards);
+    }
+
+    public Board(final Journal journal, final CardRegistry cards) {
+        this.journal = journal;
+        this.cards = cards;
+        Arrays.fill(type, EMPTY);
+        Arrays.fill(maxHealth, EMPTY);
+    }
+
+    /**
+     * @return true if the changes have to be recorded
+     */
+    private boolean recording() {
+        return journal != null && journal.isRecording();
+    }
+
+    /**
+     * Takes the cards and states of another board, without recording the change
+     * @param other the board copied
+     */
+    void copyFrom(final Board other) {
+        System.arraycopy(other.type, ZERO, type, ZERO, SLOTS);
+        System.arraycopy(other.mana, ZERO, mana, ZERO, SLOTS);
+        System.arraycopy(other.attack, ZERO, attack, ZERO, SLOTS);
+        System.arraycopy(other.health, ZERO, health, ZERO, SLOTS);
+        System.arraycopy(other.occupied, ZERO, occupied, ZERO, ROWS);
+        System.arraycopy(other.maxHealth, ZERO, maxHealth, ZERO, ROWS);
+        frozen = other.frozen;
+        attacked = other.attacked;
+        tanks = other.tanks;
+        linked = other.linked;
+        dirty = (ONE_BIT << SLOTS) - ONE_BIT;
+    }
+
+    /**
+     * @param stateHasher the hash to keep up to date with the changes
+     */
+    void setHasher(final StateHasher stateHasher) {
+        hasher = stateHasher;
+    }
+
+    /**
+     * Adds the cards and states of a row to the hash, or removes them from it
+     * @param row the row
+     */
+    private void hashRow(final int row) {
+        for (int slot = slot(row, ZERO); slot <= slot(row, LAST); slot++) {
+            if (type[slot] != EMPTY) {
+                hasher.toggle(StateHasher.CARD, StateHasher.BOARD, slot, type[slot]);
+                hasher.toggle(StateHasher.ATTACK, StateHasher.BOARD, slot, attack[slot]);
+                hasher.toggle(StateHasher.HEALTH, StateHasher.BOARD, slot, health[slot]);
+            }
+            if (isFrozen(slot)) {
+                hasher.toggle(StateHasher.FROZEN, StateHasher.BOARD, slot, ONE_BIT);
+            }
+            if (hasAttacked(slot)) {
+                hasher.toggle(StateHasher.ATTACKED, StateHasher.BOARD, slot, ONE_BIT);
+            }
+            if (isLinked(slot)) {
+                hasher.toggle(StateHasher.LINKED, StateHasher.BOARD, slot, ONE_BIT);
+            }
+        }
+    }
+
+    /**
+     * @param row the row of the slot
+     * @param column the column of the slot
+     * @return the index of the slot in the packed arrays
+     */
+    public static int slot(final int row, final int column) {
+        return row * COLUMNS + column;
+    }
+
+    /**
+     * @param slot the slot
+     * @return the row of the slot
+     */
+    public static int row(final int slot) {
+        return slot / COLUMNS;
+    }
+
+    /**
+     * @param slot the slot
+     * @return the column of the slot
+     */
+    public static int column(final int slot) {
+        return slot % COLUMNS;
+    }
+
+    /**
+     * @param fromRow the first row
+     * @param toRow the row after the last one
+     * @return the mask of the slots of the given rows
+     */
+    private static int rowsMask(final int fromRow, final int toRow) {
+        return ((ONE_BIT << slot(toRow - fromRow, ZERO)) - ONE_BIT) << slot(fromRow, ZERO);
+    }
+
+    /**
+     * @param row the row
+     * @return the number of cards placed on the row
+     */
+    public int getOccupied(final int row) {
+        return occupied[row];
+    }
+
+    /**
+     * @param row the row
+     * @return the number of tanks placed on the row
+     */
+    public int getTanks(final int row) {
+        return Integer.bitCount(tanks & (ROW_MASK << slot(row, ZERO)));
+    }
+
+    /**
+     * @param row the row
+     * @return the first column holding the card with the highest health, EMPTY if none
+     */
+    public int getMaxHealthColumn(final int row) {
+        return maxHealth[row];
+    }
+
+    /**
+     * @param slot the slot
+     * @return true if no card is placed on the slot
+     */
+    public boolean isEmpty(final int slot) {
+        return type[slot] == EMPTY;
+    }
+
+    /**
+     * Places a card on the first free column of a row
+     * @param row the row
+     * @param card the card to be placed
+     * @return false if the row is full
+     */
+    public boolean place(final int row, final Card card) {
+        if (occupied[row] == COLUMNS) {
+            return false;
+        }
+        if (recording()) {
+            journal.boardRow(this, row);
+        }
+        if (hasher != null) {
+            hashRow(row);
+        }
+        int column = occupied[row]++;
+        int slot = slot(row, column);
+        type[slot] = card.getId();
+        mana[slot] = card.getMana();
+        attack[slot] = card.getAttackDamage();
+        health[slot] = card.getHealth();
+        attacked &= ~(ONE_BIT << slot);
+        linked &= ~(ONE_BIT << slot) & ~(ONE_BIT << (slot + ONE_BIT));
+        if (card.getDefinition().getType().isTank()) {
+            tanks |= ONE_BIT << slot;
+        }
+        dirty |= ONE_BIT << slot;
+        if (maxHealth[row] == EMPTY || health[slot(row, maxHealth[row])] < health[slot]) {
+            maxHealth[row] = column;
+        }
+        if (hasher != null) {
+            hashRow(row);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the card, or empty card, from a slot. The columns after it shift to the left,
+     * the last one keeping its card, which is then linked to the column before it. On the
+     * last column, the card is replaced by a new empty card.
+     * @param from the slot
+     */
+    public void remove(final int from) {
+        int row = row(from);
+        int last = slot(row, LAST);
+        if (recording()) {
+            journal.boardRow(this, row);
+        }
+        if (hasher != null) {
+            hashRow(row);
+        }
+        if (from == last) {
+            type[last] = EMPTY;
+            mana[last] = ZERO;
+            attack[last] = ZERO;
+            health[last] = ZERO;
+            int others = ~(ONE_BIT << last);
+            frozen &= others;
+            attacked &= others;
+            tanks &= others;
+            linked &= others;
+        } else {
+            int length = last - from;
+            System.arraycopy(type, from + 1, type, from, length);
+            System.arraycopy(mana, from + 1, mana, from, length);
+            System.arraycopy(attack, from + 1, attack, from, length);
+            System.arraycopy(health, from + 1, health, from, length);
+            int joined = ZERO;
+            if (isLinked(from) && isLinked(from + 1)) {
+                joined = ONE_BIT << from;
+            }
+            frozen = shiftOut(frozen, from, last);
+            attacked = shiftOut(attacked, from, last);
+            tanks = shiftOut(tanks, from, last);
+            linked = (shiftOut(linked, from, last) & ~(ONE_BIT << from)) | joined
+                    | (ONE_BIT << last);
+        }
+        dirty |= ((ONE_BIT << (last - from + ONE_BIT)) - ONE_BIT) << from;
+        occupied[row] = countCards(row);
+        maxHealth[row] = findMaxHealth(row);
+        if (hasher != null) {
+            hashRow(row);
+        }
+    }
+
+    /**
+     * Drops a bit from a mask, moving the bits up to a given position one place down and
+     * leaving the bit at that position as it was
+     * @param mask the mask
+     * @param from the position of the dropped bit
+     * @param last the last position that is moved
+     * @return the new mask
+     */
+    private static int shiftOut(final int mask, final int from, final int last) {
+        int below = mask & ((ONE_BIT << from) - ONE_BIT);
+        int above = mask & -(ONE_BIT << last);
+        int moved = (mask >>> ONE_BIT) & ((ONE_BIT << last) - ONE_BIT) & -(ONE_BIT << from);
+        return below | moved | above;
+    }
+
+    /**
+     * @param row the row
+     * @return the number of columns of the row holding a card
+     */
+    private int countCards(final int row) {
+        int count = ZERO;
+        while (count < COLUMNS && type[slot(row, count)] != EMPTY) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @param row the row
+     * @return the frozen, has attacked and linked bits of the row, packed in one int
+     */
+    int getRowStates(final int row) {
+        int first = slot(row, ZERO);
+        return ((frozen >>> first) & ROW_MASK)
+                | (((attacked >>> first) & ROW_MASK) << ATTACKED_SHIFT)
+                | (((linked >>> first) & ROW_MASK) << LINKED_SHIFT);
+    }
+
+    /**
+     * Undoes a change of a slot made by place or remove, without recording it. The states
+     * of its row are restored afterwards by restoreRow.
+     * @param slot the slot
+     * @param id the id of the card on the slot, EMPTY if none
+     * @param cardAttack the attack damage of the card
+     * @param cardHealth the health of the card
+     */
+    void restoreSlot(final int slot, final int id, final int cardAttack, final int cardHealth) {
+        type[slot] = id;
+        if (id == EMPTY) {
+            mana[slot] = ZERO;
+        } else {
+            mana[slot] = getDefinition(slot).getMana();
+        }
+        attack[slot] = cardAttack;
+        health[slot] = cardHealth;
+        dirty |= ONE_BIT << slot;
+    }
+
+    /**
+     * Undoes a place or a remove once the slots of the row are restored
+     * @param row the row
+     * @param states the states of the row, as packed by getRowStates
+     */
+    void restoreRow(final int row, final int states) {
+        int first = slot(row, ZERO);
+        int others = ~(ROW_MASK << first);
+        int tankBits = ZERO;
+        for (int column = ZERO; column < COLUMNS; column++) {
+            int slot = slot(row, column);
+            if (type[slot] != EMPTY && getType(slot).isTank()) {
+                tankBits |= ONE_BIT << slot;
+            }
+        }
+        frozen = (frozen & others) | ((states & ROW_MASK) << first);
+        attacked = (attacked & others) | (((states >>> ATTACKED_SHIFT) & ROW_MASK) << first);
+        linked = (linked & others) | (((states >>> LINKED_SHIFT) & ROW_MASK) << first);
+        tanks = (tanks & others) | tankBits;
+        occupied[row] = countCards(row);
+        maxHealth[row] = findMaxHealth(row);
+    }
+
+    /**
+     * Undoes a change of attack damage
+     * @param slot the slot
+     * @param value the attack damage before the change
+     */
+    void restoreAttack(final int slot, final int value) {
+        attack[slot] = value;
+        dirty |= ONE_BIT << slot;
+    }
+
+    /**
+     * Undoes a change of health
+     * @param slot the slot
+     * @param value the health before the change
+     */
+    void restoreHealth(final int slot, final int value) {
+        health[slot] = value;
+        dirty |= ONE_BIT << slot;
+        maxHealth[row(slot)] = findMaxHealth(row(slot));
+    }
+
+    /**
+     * Undoes a change of the frozen and has attacked states
+     * @param frozenMask the frozen mask before the change
+     * @param attackedMask the has attacked mask before the change
+     */
+    void restoreFlags(final int frozenMask, final int attackedMask) {
+        frozen = frozenMask;
+        attacked = attackedMask;
+    }
+
+    /**
+     * @param slot the slot
+     * @return the mana of the card on the slot
+     */
+    public int getMana(final int slot) {
+        return mana[slot];
+    }
+
+    /**
+     * @param slot the slot
+     * @return the attack damage of the card on the slot
+     */
+    public int getAttack(final int slot) {
+        return attack[slot];
+    }
+
+    /**
+     * Sets the attack damage of a card and of the columns linked to it, empty slots are
+     * left untouched
+     * @param slot the slot
+     * @param value the new attack damage
+     */
+    public void setAttack(final int slot, final int value) {
+        if (type[slot] == EMPTY) {
+            return;
+        }
+        int end = cardEnd(slot);
+        for (int column = cardStart(slot); column <= end; column++) {
+            if (recording()) {
+                journal.boardAttack(this, column, attack[column]);
+            }
+            if (hasher != null) {
+                hasher.change(StateHasher.ATTACK, StateHasher.BOARD, column, attack[column],
+                        value);
+            }
+            attack[column] = value;
+            dirty |= ONE_BIT << column;
+        }
+    }
+
+    /**
+     * @param slot the slot
+     * @return the health of the card on the slot
+     */
+    public int getHealth(final int slot) {
+        return health[slot];
+    }
+
+    /**
+     * Sets the health of a card and of the columns linked to it, empty slots are left
+     * untouched
+     * @param slot the slot
+     * @param value the new health
+     */
+    public void setHealth(final int slot, final int value) {
+        if (type[slot] == EMPTY) {
+            return;
+        }
+        int end = cardEnd(slot);
+        for (int column = cardStart(slot); column <= end; column++) {
+            setSlotHealth(column, value);
+        }
+    }
+
+    /**
+     * Sets the health of a single slot holding a card
+     * @param slot the slot
+     * @param value the new health
+     */
+    private void setSlotHealth(final int slot, final int value) {
+        int row = row(slot);
+        int column = column(slot);
+        int max = maxHealth[row];
+        if (recording()) {
+            journal.boardHealth(this, slot, health[slot]);
+        }
+        if (hasher != null) {
+            hasher.change(StateHasher.HEALTH, StateHasher.BOARD, slot, health[slot], value);
+        }
+        health[slot] = value;
+        dirty |= ONE_BIT << slot;
+        if (column == max) {
+            maxHealth[row] = findMaxHealth(row);
+        } else if (value > health[slot(row, max)]
+                || (value == health[slot(row, max)] && column < max)) {
+            maxHealth[row] = column;
+        }
+    }
+
+    /**
+     * @param slot the slot
+     * @return true if the card on the slot is frozen
+     */
+    public boolean isFrozen(final int slot) {
+        return (frozen & (ONE_BIT << slot)) != ZERO;
+    }
+
+    /**
+     * @param slot the slot
+     * @return true if the card, or empty card, on the slot has attacked
+     */
+    public boolean hasAttacked(final int slot) {
+        return (attacked & (ONE_BIT << slot)) != ZERO;
+    }
+
+    /**
+     * @param slot the slot
+     * @return true if the card on the slot is a tank
+     */
+    public boolean isTank(final int slot) {
+        return (tanks & (ONE_BIT << slot)) != ZERO;
+    }
+
+    /**
+     * @param slot the slot
+     * @return true if the slot holds the same card, or empty card, as the one on its left
+     */
+    public boolean isLinked(final int slot) {
+        return (linked & (ONE_BIT << slot)) != ZERO;
+    }
+
+    /**
+     * @param slot the slot
+     * @return the first of the linked columns holding the card on the slot
+     */
+    private int cardStart(final int slot) {
+        int start = slot;
+        while (isLinked(start)) {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * @param slot the slot
+     * @return the last of the linked columns holding the card on the slot
+     */
+    private int cardEnd(final int slot) {
+        int end = slot;
+        while (column(end) < LAST && isLinked(end + 1)) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return the mask of the slots holding a frozen card
+     */
+    public int getFrozenMask() {
+        return frozen;
+    }
+
+    /**
+     * Marks a card, or the empty card of an empty slot, as having attacked, together with
+     * the columns linked to it
+     * @param slot the slot
+     */
+    public void setAttacked(final int slot) {
+        int start = cardStart(slot);
+        int columns = ((ONE_BIT << (cardEnd(slot) - start + ONE_BIT)) - ONE_BIT) << start;
+        setFlags(frozen, attacked | columns);
+    }
+
+    /**
+     * Freezes every card of a row
+     * @param row the row
+     */
+    public void freezeRow(final int row) {
+        setFlags(frozen | (((ONE_BIT << occupied[row]) - ONE_BIT) << slot(row, ZERO)), attacked);
+    }
+
+    /**
+     * Unfreezes every card of the given rows
+     * @param fromRow the first row
+     * @param toRow the row after the last one
+     */
+    public void unfreeze(final int fromRow, final int toRow) {
+        setFlags(frozen & ~rowsMask(fromRow, toRow), attacked);
+    }
+
+    /**
+     * Lets every card on the board attack again, the empty slots keeping their mark
+     */
+    public void resetAttacks() {
+        int cards = ZERO;
+        for (int row = ZERO; row < ROWS; row++) {
+            cards |= ((ONE_BIT << occupied[row]) - ONE_BIT) << slot(row, ZERO);
+        }
+        setFlags(frozen, attacked & ~cards);
+    }
+
+    /**
+     * Changes the frozen and has attacked masks, recording them before they change
+     * @param frozenMask the new frozen mask
+     * @param attackedMask the new has attacked mask
+     */
+    private void setFlags(final int frozenMask, final int attackedMask) {
+        if (recording()) {
+            journal.boardFlags(this, frozen, attacked);
+        }
+        if (hasher != null) {
+            hasher.changeMask(StateHasher.FROZEN, frozen, frozenMask);
+            hasher.changeMask(StateHasher.ATTACKED, attacked, attackedMask);
+        }
+        frozen = frozenMask;
+        attacked = attackedMask;
+    }
+
+    /**
+     * Returns the slots whose card was placed, moved or changed since the last call
+     * @return the mask of those slots
+     */
+    public int takeDirty() {
+        int mask = dirty;
+        dirty = ZERO;
+        return mask;
+    }
+
+    /**
+     * @param row the row
+     * @return the first column holding the card with the highest health, EMPTY if none
+     */
+    private int findMaxHealth(final int row) {
+        int max = EMPTY;
+        for (int column = ZERO; column < occupied[row]; column++) {
+            if (max == EMPTY || health[slot(row, max)] < health[slot(row, column)]) {
+                max = column;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Recomputes the aggregates of every row and compares them with the maintained ones
+     * @throws IllegalStateException if they differ
+     */
+    public void verify() {
+        for (int row = ZERO; row < ROWS; row++) {
+            int count = ZERO;
+            for (int column = ZERO; column < COLUMNS; column++) {
+                int slot = slot(row, column);
+                if (type[slot] == EMPTY) {
+                    continue;
+                }
+                if (count != column) {
+                    throw new IllegalStateException("Row " + row + " is not compact.");
+                }
+                count++;
+                if (getType(slot).isTank() != isTank(slot)) {
+                    throw new IllegalStateException("Wrong tank bit at slot " + slot + ".");
+                }
+            }
+            int cards = ((ONE_BIT << count) - ONE_BIT) << slot(row, ZERO);
+            int states = (frozen | tanks) & (ROW_MASK << slot(row, ZERO));
+            if ((states & ~cards) != ZERO) {
+                throw new IllegalStateException("State bits set on empty slots of row " + row
+                        + ".");
+            }
+            verifyLinks(row);
+            if (count != occupied[row] || findMaxHealth(row) != maxHealth[row]) {
+                throw new IllegalStateException("Stale aggregates on row " + row + ".");
+            }
+        }
+    }
+
+    /**
+     * Checks that the linked columns of a row hold the same card in the same states
+     * @param row the row
+     * @throws IllegalStateException if they do not
+     */
+    private void verifyLinks(final int row) {
+        if (isLinked(slot(row, ZERO))) {
+            throw new IllegalStateException("The first column of row " + row + " is linked.");
+        }
+        for (int column = 1; column < COLUMNS; column++) {
+            int slot = slot(row, column);
+            if (isLinked(slot) && (type[slot] != type[slot - 1]
+                    || attack[slot] != attack[slot - 1] || health[slot] != health[slot - 1]
+                    || isFrozen(slot) != isFrozen(slot - 1)
+                    || hasAttacked(slot) != hasAttacked(slot - 1))) {
+                throw new IllegalStateException("Slot " + slot + " differs from the card it "
+                        + "is linked to.");
+            }
+        }
+    }
+
+    /**
+     * @param slot the slot
+     * @return the id of the definition of the card placed on the slot, EMPTY if none
+     */
+    public int getId(final int slot) {
+        return type[slot];
+    }
+
+    /**
+     * @param slot the slot
+     * @return the definition of the card placed on the slot
+     */
+    public CardDefinition getDefinition(final int slot) {
+        return cards.get(type[slot]);
+    }
+
+    /**
+     * @param slot the slot
+     * @return the type of the card placed on the slot
+     */
+    public CardType getType(final int slot) {
+        return cards.get(type[slot]).getType();
+    }
+}
@@ -0,0 +1,62 @@
+package org.poo.game;
+
+import org.poo.players.Card;
+import org.poo.players.CardDefinition;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the printed form of the cards of one game, so the query commands only build the
+ * node of a card again when its mana, attack or health changed. A cached node is never
+ * modified, it is replaced, so it can be part of several results.
+ */
+final class CardNodes {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ResultBuilder results;
+    private final ObjectNode[] slots = new ObjectNode[Board.SLOTS];
+    private ObjectNode[] definitions = new ObjectNode[INITIAL_CAPACITY];
+
+    CardNodes(final ResultBuilder results) {
+        this.results = results;
+    }
+
+    /**
+     * @param card a card that is not on the board
+     * @return the node describing the card, null if there is no card
+     */
+    ObjectNode card(final Card card) {
+        if (card == null) {
+            return null;
+        }
+        CardDefinition definition = card.getDefinition();
+        if (card.getAttackDamage() != definition.getAttackDamage()
+                || card.getHealth() != definition.getHealth()) {
+            return results.card(card);
+        }
+        int id = card.getId();
+        if (id >= definitions.length) {
+            definitions = Arrays.copyOf(definitions, Math.max(id + 1, definitions.length * 2));
+        }
+        if (definitions[id] == null) {
+            definitions[id] = results.card(card);
+        }
+        return definitions[id];
+    }
+
+    /**
+     * @param board the board of the game
+     * @param slot the slot of the card
+     * @return the node describing the card placed on the slot
+     */
+    ObjectNode card(final Board board, final int slot) {
+        for (int dirty = board.takeDirty(); dirty != Board.ZERO; dirty &= dirty - 1) {
+            slots[Integer.numberOfTrailingZeros(dirty)] = null;
+        }
+        if (slots[slot] == null) {
+            slots[slot] = results.card(board, slot);
+        }
+        return slots[slot];
+    }
+}
@@ -0,0 +1,102 @@
+package org.poo.game;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The commands understood by the engine, the ordinal of a command being its opcode
+ */
+public enum Command {
+    GET_PLAYER_DECK("getPlayerDeck"),
+    GET_PLAYER_HERO("getPlayerHero"),
+    GET_PLAYER_TURN("getPlayerTurn"),
+    GET_CARDS_IN_HAND("getCardsInHand"),
+    GET_PLAYER_MANA("getPlayerMana"),
+    GET_CARDS_ON_TABLE("getCardsOnTable"),
+    PLACE_CARD("placeCard"),
+    CARD_USES_ATTACK("cardUsesAttack"),
+    GET_CARD_AT_POSITION("getCardAtPosition"),
+    CARD_USES_ABILITY("cardUsesAbility"),
+    USE_ATTACK_HERO("useAttackHero"),
+    USE_HERO_ABILITY("useHeroAbility"),
+    GET_FROZEN_CARDS_ON_TABLE("getFrozenCardsOnTable"),
+    END_PLAYER_TURN("endPlayerTurn"),
+    GET_TOTAL_GAMES_PLAYED("getTotalGamesPlayed"),
+    GET_PLAYER_ONE_WINS("getPlayerOneWins"),
+    GET_PLAYER_TWO_WINS("getPlayerTwoWins"),
+    UNKNOWN(null);
+
+    private static final Command[] OPCODES = values();
+    private static final Map<String, Command> BY_NAME = new HashMap<>();
+
+    static {
+        for (Command command : OPCODES) {
+            if (command.commandName != null) {
+                BY_NAME.put(command.commandName, command);
+            }
+        }
+    }
+
+    private final String commandName;
+    private final boolean query;
+
+    Command(final String commandName) {
+        this.commandName = commandName;
+        this.query = commandName != null && commandName.startsWith("get");
+    }
+
+    /**
+     * @return the name of the command, as it appears in the input
+     */
+    public String getCommandName() {
+        return commandName;
+    }
+
+    /**
+     * @return true if the command only outputs a result, without changing the game
+     */
+    public boolean isQuery() {
+        return query;
+    }
+
+    /**
+     * @return the opcode of the command
+     */
+    public int getOpcode() {
+        return ordinal();
+    }
+
+    /**
+     * @param commandName the name of a command
+     * @return the command with that name, UNKNOWN if there is none
+     */
+    public static Command fromName(final String commandName) {
+        return BY_NAME.getOrDefault(commandName, UNKNOWN);
+    }
+
+    /**
+     * @return the names of the commands, indexed by opcode, without UNKNOWN
+     */
+    public static String[] names() {
+        String[] names = new String[UNKNOWN.ordinal()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = OPCODES[i].commandName;
+        }
+        return names;
+    }
+
+    /**
+     * @param opcode an opcode
+     * @return the command with that opcode
+     */
+    public static Command fromOpcode(final int opcode) {
+        return OPCODES[opcode];
+    }
+
+    /**
+     * @return the number of opcodes
+     */
+    public static int count() {
+        return OPCODES.length;
+    }
+}
@@ -0,0 +1,35 @@
+package org.poo.game;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A win statistic printed by a game that was run before the games in front of it had
+ * finished. Its result holds the wins of the game itself until the wins of the earlier
+ * games are known and added by resolve.
+ */
+public final class DeferredWins {
+    private final ObjectNode result;
+    private final boolean countsOne;
+    private final boolean countsTwo;
+
+    DeferredWins(final ObjectNode result, final boolean countsOne, final boolean countsTwo) {
+        this.result = result;
+        this.countsOne = countsOne;
+        this.countsTwo = countsTwo;
+    }
+
+    /**
+     * @param winsOne the wins of player one before the game
+     * @param winsTwo the wins of player two before the game
+     */
+    public void resolve(final int winsOne, final int winsTwo) {
+        int wins = result.get("output").asInt();
+        if (countsOne) {
+            wins += winsOne;
+        }
+        if (countsTwo) {
+            wins += winsTwo;
+        }
+        result.put("output", wins);
+    }
+}
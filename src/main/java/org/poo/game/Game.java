@@ -2,10 +2,11 @@ package org.poo.game;
 
 import org.poo.hero.HeroCard;
 import org.poo.players.Card;
+import org.poo.players.CardRegistry;
 import org.poo.players.Deck;
 import org.poo.players.Player;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.poo.output.OutputSink;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.fileio.ActionsInput;
 import org.poo.fileio.CardInput;
@@ -15,7 +16,7 @@ import org.poo.fileio.Input;
 
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 
 import lombok.Getter;
@@ -25,14 +26,22 @@ import lombok.Setter;
 @Setter
 public final class Game {
 
+    private final CardRegistry cards;
     private Input input;
     private GameInput gameInput;
     private ArrayList<ActionsInput> actionsInput;
     private int turns;
     private Player playerOne;
     private Player playerTwo;
-    private ArrayList<ArrayList<Card>> board = new ArrayList<>();
-    private ArrayNode output;
+    private Board board;
+    private OutputSink output;
+    private int round;
+    private List<DeferredWins> deferredWins;
+    private static final ResultBuilder RESULTS = new ResultBuilder(JsonNodeFactory.instance);
+    private final Journal journal = new Journal();
+    private final StateHasher hasher = new StateHasher();
+    private final Actions actions = new Actions(RESULTS, journal);
+    private final Instruction[] instructions = makeInstructions();
     public static final int ZERO = 0;
     public static final int ONE = 1;
     public static final int TWO = 2;
@@ -40,14 +49,37 @@ public final class Game {
     public static final int FOUR = 4;
     public static final int FIVE = 5;
     public static final int MAX_MANA = 10;
+    private static final boolean CHECK_BOARD = Boolean.getBoolean("gwentstone.checkBoard");
     private Random random;
 
+    /**
+     * Makes a game whose cards are registered apart from those of any other game
+     * @param input the decks
+     * @param gameInput the game to be played
+     * @param actionsInput the actions of the game
+     * @param output the sink receiving the results
+     */
     public Game(final Input input, final GameInput gameInput,
-                final ArrayList<ActionsInput> actionsInput, final ArrayNode output) {
+                final ArrayList<ActionsInput> actionsInput, final OutputSink output) {
+        this(new CardRegistry(), input, gameInput, actionsInput, output);
+    }
+
+    /**
+     * @param cards the registry of the cards of the input, shared by the games started from
+     *              it, so that their cards have the same ids
+     * @param input the decks
+     * @param gameInput the game to be played
+     * @param actionsInput the actions of the game
+     * @param output the sink receiving the results
+     */
+    public Game(final CardRegistry cards, final Input input, final GameInput gameInput,
+                final ArrayList<ActionsInput> actionsInput, final OutputSink output) {
+        this.cards = cards;
         this.input = input;
         this.gameInput = gameInput;
         this.actionsInput = actionsInput;
         this.turns = ZERO;
+        this.round = ONE;
         this.output = output;
     }
 
@@ -57,7 +89,7 @@ public final class Game {
      * @return a list of cards
      */
     public ArrayList<Card> makeCards(final int playerIdx, final int deckIdx) {
-        ArrayList<Card> cards = new ArrayList<>();
+        ArrayList<Card> deckCards = new ArrayList<>();
         DecksInput playerDecks;
         if (playerIdx == ONE) {
             playerDecks = input.getPlayerOneDecks();
@@ -65,12 +97,12 @@ public final class Game {
             playerDecks = input.getPlayerTwoDecks();
         }
         for (CardInput cardInput : playerDecks.getDecks().get(deckIdx)) {
-            Card card = new Card(cardInput.getMana(),
+            int id = cards.intern(cardInput.getMana(),
                     cardInput.getAttackDamage(), cardInput.getHealth(),
                     cardInput.getDescription(), cardInput.getColors(), cardInput.getName());
-            cards.add(card);
+            deckCards.add(new Card(cards, id));
         }
-        return cards;
+        return deckCards;
     }
 
     /**
@@ -78,13 +110,7 @@ public final class Game {
      */
     public void startGame() {
 
-        for (int i = ZERO; i < FOUR; i++) {
-            ArrayList<Card> row = new ArrayList<>();
-            for (int j = ZERO; j < FIVE; j++) {
-                row.add(new Card());
-            }
-            board.add(row);
-        }
+        board = new Board(journal, cards);
         ArrayList<Card> cardsOne = makeCards(ONE, gameInput.getStartGame().getPlayerOneDeckIdx());
         ArrayList<Card> cardsTwo = makeCards(TWO, gameInput.getStartGame().getPlayerTwoDeckIdx());
         Deck deck1 = new Deck(input.getPlayerOneDecks().getNrCardsInDeck(),
@@ -92,15 +118,17 @@ public final class Game {
         Deck deck2 = new Deck(input.getPlayerTwoDecks().getNrCardsInDeck(),
                 gameInput.getStartGame().getPlayerTwoDeckIdx(), cardsTwo);
         random = new Random(gameInput.getStartGame().getShuffleSeed());
-        Collections.shuffle(deck1.getCards(), random);
+        deck1.shuffle(random);
         random = new Random(gameInput.getStartGame().getShuffleSeed());
-        Collections.shuffle(deck2.getCards(), random);
+        deck2.shuffle(random);
 
-        HeroCard playerOneHero = new HeroCard(gameInput.getStartGame().getPlayerOneHero().getMana(),
+        HeroCard playerOneHero = new HeroCard(cards,
+                gameInput.getStartGame().getPlayerOneHero().getMana(),
                 gameInput.getStartGame().getPlayerOneHero().getDescription(),
                 gameInput.getStartGame().getPlayerOneHero().getColors(),
                 gameInput.getStartGame().getPlayerOneHero().getName());
-        HeroCard playerTwoHero = new HeroCard(gameInput.getStartGame().getPlayerTwoHero().getMana(),
+        HeroCard playerTwoHero = new HeroCard(cards,
+                gameInput.getStartGame().getPlayerTwoHero().getMana(),
                 gameInput.getStartGame().getPlayerTwoHero().getDescription(),
                 gameInput.getStartGame().getPlayerTwoHero().getColors(),
                 gameInput.getStartGame().getPlayerTwoHero().getName());
@@ -108,14 +136,8 @@ public final class Game {
         playerOne = new Player(ONE, ONE, deck1, playerOneHero, TWO, THREE, ZERO);
         playerTwo = new Player(TWO, ONE, deck2, playerTwoHero, ONE, ZERO, ZERO);
 
-        playerOne.getHand().add(playerOne.getDeck().getCards().get(ZERO));
-        playerTwo.getHand().add(playerTwo.getDeck().getCards().get(ZERO));
-        playerOne.setHandSize(playerOne.getHandSize() + ONE);
-        playerTwo.setHandSize(playerTwo.getHandSize() + ONE);
-        playerOne.getDeck().getCards().remove(ZERO);
-        playerOne.getDeck().setSize(playerOne.getDeck().getSize() - ONE);
-        playerTwo.getDeck().getCards().remove(ZERO);
-        playerTwo.getDeck().setSize(playerTwo.getDeck().getSize() - ONE);
+        journal.draw(playerOne);
+        journal.draw(playerTwo);
 
         if (gameInput.getStartGame().getStartingPlayer() == ONE) {
             playerOne.setTurn(true);
@@ -124,6 +146,51 @@ public final class Game {
             playerOne.setTurn(false);
             playerTwo.setTurn(true);
         }
+        journal.clear();
+    }
+
+    /**
+     * Makes this game take the state of another one started on the same game input, and
+     * drops what its journal recorded so far. The cards in hand are shared with the other
+     * game, which never changes them.
+     * @param other the game copied
+     */
+    public void copyFrom(final Game other) {
+        turns = other.turns;
+        round = other.round;
+        copyFrom(playerOne, other.playerOne);
+        copyFrom(playerTwo, other.playerTwo);
+        board.copyFrom(other.board);
+        journal.clear();
+        hasher.setHash(StateHasher.compute(this));
+    }
+
+    /**
+     * @param player a player of this game
+     * @param other the same player in the game copied
+     */
+    private static void copyFrom(final Player player, final Player other) {
+        player.setMana(other.getMana());
+        player.setTurn(other.isTurn());
+        player.setWins(other.getWins());
+        player.getHand().clear();
+        player.getHand().addAll(other.getHand());
+        player.getDeck().setCursor(other.getDeck().getCursor());
+        Card hero = player.getPlayerHero();
+        Card otherHero = other.getPlayerHero();
+        hero.setHealth(otherHero.getHealth());
+        hero.setDead(otherHero.isDead());
+        hero.setHasAttacked(otherHero.isHasAttacked());
+    }
+
+    /**
+     * Computes the hash of the state of the started game and keeps it up to date from now
+     * on, dropping what the journal recorded so far
+     */
+    public void startHashing() {
+        hasher.setHash(StateHasher.compute(this));
+        journal.setHasher(hasher);
+        board.setHasher(hasher);
     }
 
     /**
@@ -139,149 +206,215 @@ public final class Game {
      * @param actions list of actions
      */
     public void makeActions(final ArrayList<ActionsInput> actions) {
-        int round = 1;
-        for (ActionsInput action : actions) {
-            Actions newAction = new Actions(action.getCommand(), action.getHandIdx(),
-                    action.getCardAttacker(), action.getCardAttacked(),
-                    action.getAffectedRow(), action.getPlayerIdx(), action.getX(), action.getY());
-
-
-            if (action.getCommand().equals("endPlayerTurn")) {
-                this.turns++;
-                if (this.turns % TWO == ZERO) {
-                    round++;
-
-                    playerOne.getPlayerHero().setHasAttacked(false);
-                    playerTwo.getPlayerHero().setHasAttacked(false);
-
-                    for (int i = ZERO; i < FOUR; i++) {
-                        for (int j = ZERO; j < FIVE; j++) {
-                            Card card = board.get(i).get(j);
-                            if (card != null) {
-                                if (card.getName() != null) {
-                                    card.setHasAttacked(false);
-                                }
-                            }
-                        }
-                    }
-
-                    if (round <= MAX_MANA) {
-                        playerOne.setMana(playerOne.getMana() + (round));
-                        playerTwo.setMana(playerTwo.getMana() + (round));
-                    } else {
-                        playerOne.setMana(playerOne.getMana() + MAX_MANA);
-                        playerTwo.setMana(playerTwo.getMana() + MAX_MANA);
-                    }
-
-                    addCardToHand(playerOne);
-                    addCardToHand(playerTwo);
-                }
+        run(Program.compile(actions));
+    }
+
+    /**
+     * Executes a compiled list of actions
+     * @param program the program to be executed
+     */
+    public void run(final Program program) {
+        for (int pc = ZERO; pc < program.size(); pc++) {
+            execute(program, pc);
+        }
+    }
+
+    /**
+     * Executes one instruction of a compiled list of actions
+     * @param program the program
+     * @param pc the index of the instruction
+     */
+    public void execute(final Program program, final int pc) {
+        journal.mark();
+        int opcode = program.getOpcode(pc);
+        if (output.keepsResults() || !Command.fromOpcode(opcode).isQuery()) {
+            instructions[opcode].execute(program, pc);
+        }
+        if (CHECK_BOARD) {
+            board.verify();
+        }
+
+        if (playerOne.getPlayerHero().isDead()) {
+            gameEnded("Player two killed the enemy hero.");
+            journal.setHeroDead(playerOne, false);
+            journal.setWins(playerTwo, playerTwo.getWins() + ONE);
+        } else if (playerTwo.getPlayerHero().isDead()) {
+            gameEnded("Player one killed the enemy hero.");
+            journal.setHeroDead(playerTwo, false);
+            journal.setWins(playerOne, playerOne.getWins() + ONE);
+        }
+    }
+
+    /**
+     * Outputs the end of the game, if the output keeps it
+     * @param message who killed the enemy hero
+     */
+    private void gameEnded(final String message) {
+        if (output.keepsResults()) {
+            ObjectNode result = RESULTS.object();
+            result.put("gameEnded", message);
+            output.add(result);
+        }
+    }
+
+    /**
+     * Restores the state from before the last instruction executed while the journal was
+     * recording
+     * @return false if there was nothing to undo
+     */
+    public boolean undo() {
+        return journal.undo();
+    }
+
+    /**
+     * @return the dispatch table, indexed by opcode
+     */
+    private Instruction[] makeInstructions() {
+        Instruction[] table = new Instruction[Command.count()];
+        table[Command.GET_PLAYER_DECK.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.getPlayerDeck(player, output));
+        table[Command.GET_PLAYER_HERO.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.getPlayerHero(player, output));
+        table[Command.GET_PLAYER_TURN.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.getPlayerTurn(player, output));
+        table[Command.GET_CARDS_IN_HAND.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.getCardsInHand(player, output));
+        table[Command.GET_PLAYER_MANA.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.getPlayerMana(player, output));
+        table[Command.GET_CARDS_ON_TABLE.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.getCardsOnTable(output, board));
+        table[Command.PLACE_CARD.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.placeCard(program.getHandIdx(pc), player, output, board));
+        table[Command.CARD_USES_ATTACK.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.cardUsesAttack(onBoard(program.getAttacker(pc)),
+                onBoard(program.getAttacked(pc)), player, output, board));
+        table[Command.GET_CARD_AT_POSITION.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.getCardAtPosition(Board.row(onBoard(program.getPosition(pc))),
+                Board.column(program.getPosition(pc)), output, board));
+        table[Command.CARD_USES_ABILITY.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.cardUsesAbility(onBoard(program.getAttacker(pc)),
+                onBoard(program.getAttacked(pc)), player, output, board));
+        table[Command.USE_ATTACK_HERO.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.useAttackHero(onBoard(program.getAttacker(pc)), player, output,
+                board));
+        table[Command.USE_HERO_ABILITY.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.useHeroAbility(program.getAffectedRow(pc), player, output, board));
+        table[Command.GET_FROZEN_CARDS_ON_TABLE.getOpcode()] = forPlayer((program, pc, player)
+                -> actions.getFrozenCardsOnTable(output, board));
+        table[Command.END_PLAYER_TURN.getOpcode()] = (program, pc) -> endPlayerTurn();
+        table[Command.GET_TOTAL_GAMES_PLAYED.getOpcode()] = (program, pc)
+                -> outputWins("getTotalGamesPlayed", true, true);
+        table[Command.GET_PLAYER_ONE_WINS.getOpcode()] = (program, pc)
+                -> outputWins("getPlayerOneWins", true, false);
+        table[Command.GET_PLAYER_TWO_WINS.getOpcode()] = (program, pc)
+                -> outputWins("getPlayerTwoWins", false, true);
+        table[Command.UNKNOWN.getOpcode()] = (program, pc) -> { };
+        return table;
+    }
+
+    /**
+     * Refuses the positions an action names off the board, the way the rules did when they
+     * indexed the board with them
+     * @param slot a slot read from the program
+     * @return the slot
+     * @throws IndexOutOfBoundsException if the position is missing or outside the board
+     */
+    private static int onBoard(final int slot) {
+        if (slot == Program.OFF_BOARD) {
+            throw new IndexOutOfBoundsException("The action names no position on the board.");
+        }
+        return slot;
+    }
+
+    /**
+     * An instruction executed on behalf of the player chosen by the action
+     */
+    @FunctionalInterface
+    private interface PlayerInstruction {
+        void execute(Program program, int pc, Player player);
+    }
 
-                if (playerOne.isTurn()) {
-                    playerOne.setTurn(false);
-                    playerTwo.setTurn(true);
-                    for (int i = TWO; i < FOUR; i++) {
-                        for (int j = ZERO; j < FIVE; j++) {
-                            Card card = board.get(i).get(j);
-                            if (card != null) {
-                                if (card.getName() != null) {
-                                    card.setFrozen(false);
-                                }
-                            }
-                        }
-                    }
+    /**
+     * @param instruction an instruction that needs a player
+     * @return the instruction, called with the player chosen by the action
+     */
+    private Instruction forPlayer(final PlayerInstruction instruction) {
+        return (program, pc) -> {
+            int playerIdx = program.getPlayerIdx(pc);
+            if (playerIdx == ONE) {
+                instruction.execute(program, pc, playerOne);
+            } else if (playerIdx == TWO) {
+                instruction.execute(program, pc, playerTwo);
+            } else if (playerIdx == ZERO) {
+                boolean attacksHero = program.getOpcode(pc) == Command.USE_ATTACK_HERO.getOpcode();
+                if (playerOne.isTurn() != attacksHero) {
+                    instruction.execute(program, pc, playerOne);
                 } else {
-                    playerOne.setTurn(true);
-                    playerTwo.setTurn(false);
-                    for (int i = ZERO; i < TWO; i++) {
-                        for (int j = ZERO; j < FIVE; j++) {
-                            Card card = board.get(i).get(j);
-                            if (card != null) {
-                                if (card.getName() != null) {
-                                    card.setFrozen(false);
-                                }
-                            }
-                        }
-                    }
+                    instruction.execute(program, pc, playerTwo);
                 }
             }
+        };
+    }
 
-            if (action.getCommand().equals("getTotalGamesPlayed")) {
-                ObjectMapper objectMapper = new ObjectMapper();
-                ObjectNode result = objectMapper.createObjectNode();
-                result.put("command", "getTotalGamesPlayed");
-                result.put("output", playerOne.getWins() + playerTwo.getWins());
-                output.add(result);
-            }
+    /**
+     * Ends the turn of the current player, starting a new round every second turn
+     */
+    private void endPlayerTurn() {
+        journal.setTurns(this, turns + ONE);
+        if (this.turns % TWO == ZERO) {
+            journal.setRound(this, round + ONE);
 
-            if (action.getCommand().equals("getPlayerOneWins")) {
-                ObjectMapper objectMapper = new ObjectMapper();
-                ObjectNode result = objectMapper.createObjectNode();
-                result.put("command", "getPlayerOneWins");
-                result.put("output", playerOne.getWins());
-                output.add(result);
-            }
+            journal.setHeroAttacked(playerOne, false);
+            journal.setHeroAttacked(playerTwo, false);
+
+            board.resetAttacks();
 
-            if (action.getCommand().equals("getPlayerTwoWins")) {
-                ObjectMapper objectMapper = new ObjectMapper();
-                ObjectNode result = objectMapper.createObjectNode();
-                result.put("command", "getPlayerTwoWins");
-                result.put("output", playerTwo.getWins());
-                output.add(result);
+            if (round <= MAX_MANA) {
+                journal.setMana(playerOne, playerOne.getMana() + (round));
+                journal.setMana(playerTwo, playerTwo.getMana() + (round));
+            } else {
+                journal.setMana(playerOne, playerOne.getMana() + MAX_MANA);
+                journal.setMana(playerTwo, playerTwo.getMana() + MAX_MANA);
             }
 
-            if (action.getPlayerIdx() != ZERO) {
-                if (action.getPlayerIdx() == ONE) {
-                    newAction.executeCommand(action.getCommand(),
-                            newAction, playerOne, output, board);
-                } else if (action.getPlayerIdx() == TWO) {
-                    newAction.executeCommand(action.getCommand(),
-                            newAction, playerTwo, output, board);
-                }
-            } else if (playerOne.isTurn()) {
-                if (action.getCommand().equals("useAttackHero")) {
-                    newAction.executeCommand(action.getCommand(),
-                            newAction, playerTwo, output, board);
-                } else {
-                    newAction.executeCommand(action.getCommand(),
-                            newAction, playerOne, output, board);
-                }
-            } else if (action.getCommand().equals("useAttackHero")) {
-                    newAction.executeCommand(action.getCommand(),
-                            newAction, playerOne, output, board);
-                } else {
-                    newAction.executeCommand(action.getCommand(),
-                            newAction, playerTwo, output, board);
-                }
+            journal.draw(playerOne);
+            journal.draw(playerTwo);
+        }
 
-            if (playerOne.getPlayerHero().isDead()) {
-                ObjectMapper objectMapper = new ObjectMapper();
-                ObjectNode result = objectMapper.createObjectNode();
-                result.put("gameEnded", "Player two killed the enemy hero.");
-                output.add(result);
-                playerOne.getPlayerHero().setDead(false);
-                playerTwo.setWins(playerTwo.getWins() + ONE);
-            } else if (playerTwo.getPlayerHero().isDead()) {
-                ObjectMapper objectMapper = new ObjectMapper();
-                ObjectNode result = objectMapper.createObjectNode();
-                result.put("gameEnded", "Player one killed the enemy hero.");
-                output.add(result);
-                playerTwo.getPlayerHero().setDead(false);
-                playerOne.setWins(playerOne.getWins() + ONE);
-            }
+        if (playerOne.isTurn()) {
+            journal.setTurn(playerOne, false);
+            journal.setTurn(playerTwo, true);
+            board.unfreeze(TWO, FOUR);
+        } else {
+            journal.setTurn(playerOne, true);
+            journal.setTurn(playerTwo, false);
+            board.unfreeze(ZERO, TWO);
         }
     }
 
     /**
-     * @param player1 player one
+     * Outputs one of the statistics about the games played
+     * @param command the command that asked for it
+     * @param countsOne true if the wins of player one are counted
+     * @param countsTwo true if the wins of player two are counted
      */
-    private void addCardToHand(final Player player1) {
-        if (player1.getDeck().getSize() > ZERO) {
-            player1.getHand().add(player1.getDeck().getCards().get(ZERO));
-            player1.setHandSize(player1.getHandSize() + ONE);
-            player1.getDeck().getCards().remove(ZERO);
-            player1.getDeck().setSize(player1.getDeck().getSize() - ONE);
+    private void outputWins(final String command, final boolean countsOne,
+                            final boolean countsTwo) {
+        int wins = ZERO;
+        if (countsOne) {
+            wins += playerOne.getWins();
+        }
+        if (countsTwo) {
+            wins += playerTwo.getWins();
+        }
+        ObjectNode result = RESULTS.object();
+        result.put("command", command);
+        result.put("output", wins);
+        output.add(result);
+        if (deferredWins != null) {
+            deferredWins.add(new DeferredWins(result, countsOne, countsTwo));
         }
     }
 
+
 }
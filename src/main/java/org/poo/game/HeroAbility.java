@@ -0,0 +1,14 @@
+package org.poo.game;
+
+/**
+ * The ability of a hero, used on a whole row of the board
+ */
+@FunctionalInterface
+public interface HeroAbility {
+
+    /**
+     * @param board the board of the game
+     * @param row the affected row
+     */
+    void use(Board board, int row);
+}
@@ -0,0 +1,14 @@
+package org.poo.game;
+
+/**
+ * An entry of the dispatch table used to run a compiled program
+ */
+@FunctionalInterface
+public interface Instruction {
+
+    /**
+     * @param program the program being executed
+     * @param pc the index of the instruction in the program
+     */
+    void execute(Program program, int pc);
+}
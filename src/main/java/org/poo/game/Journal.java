@@ -0,0 +1,473 @@
+package org.poo.game;
+
+import org.poo.players.Card;
+import org.poo.players.Deck;
+import org.poo.players.Player;
+
+import java.util.Arrays;
+
+/**
+ * The undo log of a game. While recording, every change to the state of a game goes
+ * through the journal, which stores what it overwrites as a typed record: the ints of the
+ * record followed by its kind on a primitive stack, and the objects it touched on a second
+ * stack. Game marks the start of every action, and undo pops the records back to the
+ * last mark, so undoing an action takes time proportional to the changes it made. When
+ * not recording, the setters only apply the changes.
+ *
+ * A journal can also keep a StateHasher up to date: the setters toggle the keys of the
+ * values they overwrite and write, and every mark saves the hash, which undo restores.
+ */
+public final class Journal {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MARK = 0;
+    private static final int MANA = 1;
+    private static final int TURN = 2;
+    private static final int WINS = 3;
+    private static final int HAND_ADD = 4;
+    private static final int HAND_REMOVE = 5;
+    private static final int DRAW = 6;
+    private static final int HEALTH = 7;
+    private static final int DEAD = 8;
+    private static final int HAS_ATTACKED = 9;
+    private static final int TURNS = 10;
+    private static final int ROUND = 11;
+    private static final int BOARD_ATTACK = 12;
+    private static final int BOARD_HEALTH = 13;
+    private static final int BOARD_ROW = 14;
+    private static final int BOARD_FLAGS = 15;
+    private static final int TRUE = 1;
+    private static final int FALSE = 0;
+
+    private int[] ints = new int[INITIAL_CAPACITY];
+    private int intSize;
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private int objectSize;
+    private int marks;
+    private boolean recording;
+    private StateHasher hasher;
+    private long[] hashes = new long[INITIAL_CAPACITY];
+
+    /**
+     * @return true if changes are recorded
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Starts or stops recording, dropping what was recorded so far
+     * @param recording true to record the changes from now on
+     */
+    public void setRecording(final boolean recording) {
+        this.recording = recording;
+        clear();
+    }
+
+    /**
+     * Drops every record, the current state becoming the oldest one that can be restored
+     */
+    public void clear() {
+        Arrays.fill(objects, 0, objectSize, null);
+        intSize = 0;
+        objectSize = 0;
+        marks = 0;
+    }
+
+    /**
+     * Starts keeping a hash of the state up to date, dropping what was recorded so far
+     * @param stateHasher the hash of the current state
+     */
+    void setHasher(final StateHasher stateHasher) {
+        hasher = stateHasher;
+        clear();
+    }
+
+    /**
+     * @return the number of actions that can be undone
+     */
+    public int getMarks() {
+        return marks;
+    }
+
+    /**
+     * Marks the start of an action
+     */
+    void mark() {
+        if (recording) {
+            push(MARK);
+            if (hasher != null) {
+                if (marks == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, marks * 2);
+                }
+                hashes[marks] = hasher.getHash();
+            }
+            marks++;
+        }
+    }
+
+    /**
+     * Restores the state from before the last marked action
+     * @return false if there was no action to undo
+     */
+    boolean undo() {
+        if (marks == 0) {
+            return false;
+        }
+        for (int kind = pop(); kind != MARK; kind = pop()) {
+            undo(kind);
+        }
+        marks--;
+        if (hasher != null) {
+            hasher.setHash(hashes[marks]);
+        }
+        return true;
+    }
+
+    /**
+     * @param player a player
+     * @param mana the new mana of the player
+     */
+    void setMana(final Player player, final int mana) {
+        if (recording) {
+            push(player, player.getMana(), MANA);
+        }
+        if (hasher != null) {
+            hasher.change(StateHasher.MANA, player.getIdx(), 0, player.getMana(), mana);
+        }
+        player.setMana(mana);
+    }
+
+    /**
+     * @param player a player
+     * @param turn true if it becomes the turn of the player
+     */
+    void setTurn(final Player player, final boolean turn) {
+        if (recording) {
+            push(player, player.isTurn() ? TRUE : FALSE, TURN);
+        }
+        if (hasher != null) {
+            hasher.change(StateHasher.TURN, player.getIdx(), 0,
+                    StateHasher.bit(player.isTurn()), StateHasher.bit(turn));
+        }
+        player.setTurn(turn);
+    }
+
+    /**
+     * @param player a player
+     * @param wins the new number of wins of the player
+     */
+    void setWins(final Player player, final int wins) {
+        if (recording) {
+            push(player, player.getWins(), WINS);
+        }
+        player.setWins(wins);
+    }
+
+    /**
+     * Draws the next card of a player's deck into the player's hand
+     * @param player a player
+     */
+    void draw(final Player player) {
+        Card card = player.getDeck().draw();
+        if (card == null) {
+            return;
+        }
+        player.getHand().add(card);
+        if (hasher != null) {
+            int cursor = player.getDeck().getCursor();
+            hasher.change(StateHasher.DECK, player.getIdx(), 0, cursor - 1, cursor);
+            hasher.toggleHand(player, player.getHand().size() - 1, card);
+        }
+        if (recording) {
+            pushObject(player);
+            push(DRAW);
+        }
+    }
+
+    /**
+     * @param player a player
+     * @param handIdx the index of the card removed from the player's hand
+     */
+    void removeFromHand(final Player player, final int handIdx) {
+        if (hasher != null) {
+            hasher.toggleHand(player, handIdx);
+        }
+        Card card = player.getHand().remove(handIdx);
+        if (hasher != null) {
+            hasher.toggleHand(player, handIdx);
+        }
+        if (recording) {
+            pushObject(card);
+            push(player, handIdx, HAND_REMOVE);
+        }
+    }
+
+    /**
+     * @param player a player
+     * @param health the new health of the player's hero
+     */
+    void setHeroHealth(final Player player, final int health) {
+        Card hero = player.getPlayerHero();
+        if (recording) {
+            push(player, hero.getHealth(), HEALTH);
+        }
+        if (hasher != null) {
+            hasher.change(StateHasher.HERO_HEALTH, player.getIdx(), 0, hero.getHealth(),
+                    health);
+        }
+        hero.setHealth(health);
+    }
+
+    /**
+     * @param player a player
+     * @param dead true if the player's hero is dead
+     */
+    void setHeroDead(final Player player, final boolean dead) {
+        Card hero = player.getPlayerHero();
+        if (recording) {
+            push(player, hero.isDead() ? TRUE : FALSE, DEAD);
+        }
+        if (hasher != null) {
+            hasher.change(StateHasher.HERO_DEAD, player.getIdx(), 0,
+                    StateHasher.bit(hero.isDead()), StateHasher.bit(dead));
+        }
+        hero.setDead(dead);
+    }
+
+    /**
+     * @param player a player
+     * @param hasAttacked true if the player's hero has attacked this turn
+     */
+    void setHeroAttacked(final Player player, final boolean hasAttacked) {
+        Card hero = player.getPlayerHero();
+        if (recording) {
+            push(player, hero.isHasAttacked() ? TRUE : FALSE, HAS_ATTACKED);
+        }
+        if (hasher != null) {
+            hasher.change(StateHasher.HERO_ATTACKED, player.getIdx(), 0,
+                    StateHasher.bit(hero.isHasAttacked()), StateHasher.bit(hasAttacked));
+        }
+        hero.setHasAttacked(hasAttacked);
+    }
+
+    /**
+     * @param game a game
+     * @param turns the new number of turns played
+     */
+    void setTurns(final Game game, final int turns) {
+        if (recording) {
+            push(game, game.getTurns(), TURNS);
+        }
+        if (hasher != null) {
+            hasher.change(StateHasher.TURN_PARITY, StateHasher.BOARD, 0, game.getTurns() & 1,
+                    turns & 1);
+        }
+        game.setTurns(turns);
+    }
+
+    /**
+     * @param game a game
+     * @param round the new round
+     */
+    void setRound(final Game game, final int round) {
+        if (recording) {
+            push(game, game.getRound(), ROUND);
+        }
+        if (hasher != null) {
+            hasher.change(StateHasher.ROUND, StateHasher.BOARD, 0, game.getRound(), round);
+        }
+        game.setRound(round);
+    }
+
+    /**
+     * Records the attack damage a slot had before it changed
+     * @param board the board
+     * @param slot the slot
+     * @param attack the old attack damage
+     */
+    void boardAttack(final Board board, final int slot, final int attack) {
+        pushObject(board);
+        push(slot);
+        push(attack);
+        push(BOARD_ATTACK);
+    }
+
+    /**
+     * Records the health a slot had before it changed
+     * @param board the board
+     * @param slot the slot
+     * @param health the old health
+     */
+    void boardHealth(final Board board, final int slot, final int health) {
+        pushObject(board);
+        push(slot);
+        push(health);
+        push(BOARD_HEALTH);
+    }
+
+    /**
+     * Records a row of a board before a card is placed on it or removed from it
+     * @param board the board
+     * @param row the row
+     */
+    void boardRow(final Board board, final int row) {
+        pushObject(board);
+        for (int column = 0; column < Board.COLUMNS; column++) {
+            int slot = Board.slot(row, column);
+            push(board.getId(slot));
+            push(board.getAttack(slot));
+            push(board.getHealth(slot));
+        }
+        push(board.getRowStates(row));
+        push(row);
+        push(BOARD_ROW);
+    }
+
+    /**
+     * Records the frozen and has attacked masks of a board before they changed
+     * @param board the board
+     * @param frozen the old frozen mask
+     * @param attacked the old has attacked mask
+     */
+    void boardFlags(final Board board, final int frozen, final int attacked) {
+        pushObject(board);
+        push(frozen);
+        push(attacked);
+        push(BOARD_FLAGS);
+    }
+
+    /**
+     * Undoes a record whose kind was just popped
+     * @param kind the kind of the record
+     */
+    private void undo(final int kind) {
+        switch (kind) {
+            case MANA:
+                ((Player) popObject()).setMana(pop());
+                break;
+            case TURN:
+                ((Player) popObject()).setTurn(pop() == TRUE);
+                break;
+            case WINS:
+                ((Player) popObject()).setWins(pop());
+                break;
+            case DRAW:
+                Player drawer = (Player) popObject();
+                drawer.getHand().remove(drawer.getHand().size() - 1);
+                drawer.getDeck().putBack();
+                break;
+            case HAND_REMOVE:
+                int handIdx = pop();
+                Player owner = (Player) popObject();
+                owner.getHand().add(handIdx, (Card) popObject());
+                break;
+            case HEALTH:
+                ((Player) popObject()).getPlayerHero().setHealth(pop());
+                break;
+            case DEAD:
+                ((Player) popObject()).getPlayerHero().setDead(pop() == TRUE);
+                break;
+            case HAS_ATTACKED:
+                ((Player) popObject()).getPlayerHero().setHasAttacked(pop() == TRUE);
+                break;
+            case TURNS:
+                ((Game) popObject()).setTurns(pop());
+                break;
+            case ROUND:
+                ((Game) popObject()).setRound(pop());
+                break;
+            default:
+                undoBoard(kind);
+                break;
+        }
+    }
+
+    /**
+     * Undoes a record of a board whose kind was just popped
+     * @param kind the kind of the record
+     */
+    private void undoBoard(final int kind) {
+        switch (kind) {
+            case BOARD_ATTACK: {
+                int attack = pop();
+                int slot = pop();
+                ((Board) popObject()).restoreAttack(slot, attack);
+                break;
+            }
+            case BOARD_HEALTH: {
+                int health = pop();
+                int slot = pop();
+                ((Board) popObject()).restoreHealth(slot, health);
+                break;
+            }
+            case BOARD_ROW: {
+                int row = pop();
+                int states = pop();
+                Board board = (Board) popObject();
+                for (int column = Board.COLUMNS - 1; column >= 0; column--) {
+                    int health = pop();
+                    int attack = pop();
+                    board.restoreSlot(Board.slot(row, column), pop(), attack, health);
+                }
+                board.restoreRow(row, states);
+                break;
+            }
+            case BOARD_FLAGS: {
+                int attacked = pop();
+                int frozen = pop();
+                ((Board) popObject()).restoreFlags(frozen, attacked);
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown journal record " + kind + ".");
+        }
+    }
+
+    /**
+     * Pushes a record with one object and one int
+     * @param object the object
+     * @param value the int
+     * @param kind the kind of the record
+     */
+    private void push(final Object object, final int value, final int kind) {
+        pushObject(object);
+        push(value);
+        push(kind);
+    }
+
+    /**
+     * @param value an int of a record
+     */
+    private void push(final int value) {
+        if (intSize == ints.length) {
+            ints = Arrays.copyOf(ints, intSize * 2);
+        }
+        ints[intSize++] = value;
+    }
+
+    /**
+     * @param object an object of a record
+     */
+    private void pushObject(final Object object) {
+        if (objectSize == objects.length) {
+            objects = Arrays.copyOf(objects, objectSize * 2);
+        }
+        objects[objectSize++] = object;
+    }
+
+    /**
+     * @return the last int pushed
+     */
+    private int pop() {
+        return ints[--intSize];
+    }
+
+    /**
+     * @return the last object pushed, which is dropped from the stack
+     */
+    private Object popObject() {
+        Object object = objects[--objectSize];
+        objects[objectSize] = null;
+        return object;
+    }
+}
@@ -0,0 +1,15 @@
+package org.poo.game;
+
+/**
+ * The special ability of a minion, used from one slot of the board on another
+ */
+@FunctionalInterface
+public interface MinionAbility {
+
+    /**
+     * @param board the board of the game
+     * @param attacker the slot of the card using the ability
+     * @param attacked the slot of the card the ability is used on
+     */
+    void use(Board board, int attacker, int attacked);
+}
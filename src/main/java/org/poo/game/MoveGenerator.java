@@ -0,0 +1,166 @@
+package org.poo.game;
+
+import org.poo.players.Card;
+import org.poo.players.CardType;
+import org.poo.players.Player;
+
+import java.util.List;
+
+/**
+ * Lists the actions the player on turn can take without Actions reporting an error or
+ * ignoring them, checking mana, full rows, tanks, frozen cards and cards that already
+ * attacked, and on which rows each ability may be used. The actions are appended to a
+ * Program, as instructions of the player on turn, so a caller reusing its program
+ * generates them without allocating.
+ */
+public final class MoveGenerator {
+    private static final int ZERO = 0;
+    private static final int ONE = 1;
+    private static final int TWO = 2;
+    private static final int THREE = 3;
+    private static final int PLACE_CARD = Command.PLACE_CARD.getOpcode();
+    private static final int CARD_USES_ATTACK = Command.CARD_USES_ATTACK.getOpcode();
+    private static final int CARD_USES_ABILITY = Command.CARD_USES_ABILITY.getOpcode();
+    private static final int USE_ATTACK_HERO = Command.USE_ATTACK_HERO.getOpcode();
+    private static final int USE_HERO_ABILITY = Command.USE_HERO_ABILITY.getOpcode();
+    private static final int END_PLAYER_TURN = Command.END_PLAYER_TURN.getOpcode();
+
+    /**
+     * for coding style
+     */
+    private MoveGenerator() {
+    }
+
+    /**
+     * Appends every legal action of the player on turn, ending the turn first
+     * @param game the game
+     * @param out the program receiving the actions
+     * @return the number of actions appended
+     */
+    public static int generate(final Game game, final Program out) {
+        Player player;
+        if (game.getPlayerOne().isTurn()) {
+            player = game.getPlayerOne();
+        } else {
+            player = game.getPlayerTwo();
+        }
+        Board board = game.getBoard();
+        int start = out.size();
+        add(out, END_PLAYER_TURN, ZERO, ZERO, ZERO, ZERO);
+
+        List<Card> hand = player.getHand();
+        for (int i = ZERO; i < hand.size(); i++) {
+            Card card = hand.get(i);
+            int row = placementRow(card, player);
+            if (row != Board.EMPTY && card.getMana() <= player.getMana()
+                    && board.getOccupied(row) < Board.COLUMNS) {
+                add(out, PLACE_CARD, i, ZERO, ZERO, ZERO);
+            }
+        }
+
+        int enemyFrontRow = player.getBackRow() == ZERO ? TWO : ONE;
+        int enemyBackRow = THREE - player.getBackRow();
+        addAttacks(out, board, player, player.getFrontRow(), enemyFrontRow, enemyBackRow);
+        addAttacks(out, board, player, player.getBackRow(), enemyFrontRow, enemyBackRow);
+
+        Card hero = player.getPlayerHero();
+        CardType heroType = hero.getDefinition().getType();
+        if (hero.getMana() <= player.getMana() && !hero.isHasAttacked()
+                && Actions.hasHeroAbility(heroType)) {
+            if (heroType.getTarget() == CardType.Target.ALLY) {
+                add(out, USE_HERO_ABILITY, ZERO, ZERO, ZERO, player.getFrontRow());
+                add(out, USE_HERO_ABILITY, ZERO, ZERO, ZERO, player.getBackRow());
+            } else {
+                add(out, USE_HERO_ABILITY, ZERO, ZERO, ZERO, enemyFrontRow);
+                add(out, USE_HERO_ABILITY, ZERO, ZERO, ZERO, enemyBackRow);
+            }
+        }
+        return out.size() - start;
+    }
+
+    /**
+     * Appends the attacks and abilities of the cards of a row that can still act
+     * @param out the program receiving the actions
+     * @param board the board of the game
+     * @param player the player on turn
+     * @param row a row of the player
+     * @param enemyFrontRow the front row of the enemy
+     * @param enemyBackRow the back row of the enemy
+     */
+    private static void addAttacks(final Program out, final Board board, final Player player,
+                                   final int row, final int enemyFrontRow,
+                                   final int enemyBackRow) {
+        boolean tanks = board.getTanks(enemyFrontRow) > ZERO;
+        for (int column = ZERO; column < board.getOccupied(row); column++) {
+            int attacker = Board.slot(row, column);
+            if (board.isFrozen(attacker) || board.hasAttacked(attacker)) {
+                continue;
+            }
+            addTargets(out, board, CARD_USES_ATTACK, attacker, enemyFrontRow, tanks);
+            addTargets(out, board, CARD_USES_ATTACK, attacker, enemyBackRow, tanks);
+            if (!tanks) {
+                add(out, USE_ATTACK_HERO, ZERO, attacker, ZERO, ZERO);
+            }
+            CardType type = board.getType(attacker);
+            if (!Actions.hasMinionAbility(type)) {
+                continue;
+            }
+            if (type.getTarget() == CardType.Target.ALLY) {
+                addTargets(out, board, CARD_USES_ABILITY, attacker, player.getFrontRow(), false);
+                addTargets(out, board, CARD_USES_ABILITY, attacker, player.getBackRow(), false);
+            } else {
+                addTargets(out, board, CARD_USES_ABILITY, attacker, enemyFrontRow, tanks);
+                addTargets(out, board, CARD_USES_ABILITY, attacker, enemyBackRow, tanks);
+            }
+        }
+    }
+
+    /**
+     * @param card a card in hand
+     * @param player the owner of the card
+     * @return the row the card is placed on, EMPTY if it cannot be placed
+     */
+    private static int placementRow(final Card card, final Player player) {
+        switch (card.getDefinition().getType().getPlacement()) {
+            case FRONT:
+                return player.getFrontRow();
+            case BACK:
+                return player.getBackRow();
+            default:
+                return Board.EMPTY;
+        }
+    }
+
+    /**
+     * Appends an action aimed at every card of a row
+     * @param out the program receiving the actions
+     * @param board the board of the game
+     * @param opcode the action
+     * @param attacker the slot of the card acting
+     * @param row the row
+     * @param tanksOnly true if only tanks may be targeted
+     */
+    private static void addTargets(final Program out, final Board board, final int opcode,
+                                   final int attacker, final int row, final boolean tanksOnly) {
+        for (int column = ZERO; column < board.getOccupied(row); column++) {
+            int attacked = Board.slot(row, column);
+            if (!tanksOnly || board.isTank(attacked)) {
+                add(out, opcode, ZERO, attacker, attacked, ZERO);
+            }
+        }
+    }
+
+    /**
+     * Appends an action of the player on turn
+     * @param out the program receiving the action
+     * @param opcode the action
+     * @param handIdx the index of the card in hand
+     * @param attacker the slot of the card acting
+     * @param attacked the slot of the target
+     * @param row the affected row
+     */
+    private static void add(final Program out, final int opcode, final int handIdx,
+                            final int attacker, final int attacked, final int row) {
+        out.add(opcode, handIdx, attacker, attacked, row, ZERO, ZERO);
+    }
+}
@@ -0,0 +1,284 @@
+package org.poo.game;
+
+import org.poo.fileio.ActionColumns;
+import org.poo.fileio.ActionsInput;
+import org.poo.fileio.Coordinates;
+import org.poo.fileio.PerfectHash;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A list of actions compiled to opcodes and packed operand columns.
+ * Coordinates are stored as board slots, missing coordinates and positions outside the
+ * board as OFF_BOARD, which the commands reading them refuse.
+ */
+public final class Program {
+    private static final int MIN_CAPACITY = 16;
+    public static final int ZERO = 0;
+    public static final int OFF_BOARD = -1;
+
+    private int size;
+    private int[] opcodes;
+    private int[] handIdx;
+    private int[] attacker;
+    private int[] attacked;
+    private int[] affectedRow;
+    private int[] playerIdx;
+    private int[] position;
+
+    public Program(final int capacity) {
+        int length = Math.max(capacity, MIN_CAPACITY);
+        this.size = ZERO;
+        this.opcodes = new int[length];
+        this.handIdx = new int[length];
+        this.attacker = new int[length];
+        this.attacked = new int[length];
+        this.affectedRow = new int[length];
+        this.playerIdx = new int[length];
+        this.position = new int[length];
+    }
+
+    /**
+     * Compiles a list of actions
+     * @param actions the actions read from the input
+     * @return the compiled program
+     */
+    public static Program compile(final List<ActionsInput> actions) {
+        Program program = new Program(actions.size());
+        for (ActionsInput action : actions) {
+            program.add(Command.fromName(action.getCommand()).getOpcode(), action.getHandIdx(),
+                    slot(action.getCardAttacker()), slot(action.getCardAttacked()),
+                    action.getAffectedRow(), action.getPlayerIdx(),
+                    slot(action.getX(), action.getY()));
+        }
+        return program;
+    }
+
+    /**
+     * Compiles the actions read by the mapped reader, whose command ids are opcodes
+     * @param actions the columns holding the actions
+     * @return the compiled program
+     */
+    public static Program compile(final ActionColumns actions) {
+        Program program = new Program(actions.size());
+        for (int i = ZERO; i < actions.size(); i++) {
+            int opcode = actions.get(ActionColumns.COMMAND, i);
+            if (opcode == PerfectHash.MISSING) {
+                opcode = Command.UNKNOWN.getOpcode();
+            }
+            int positions = actions.get(ActionColumns.POSITIONS, i);
+            int attackerSlot = OFF_BOARD;
+            if ((positions & ActionColumns.HAS_ATTACKER) != ZERO) {
+                attackerSlot = slot(actions.get(ActionColumns.ATTACKER_X, i),
+                        actions.get(ActionColumns.ATTACKER_Y, i));
+            }
+            int attackedSlot = OFF_BOARD;
+            if ((positions & ActionColumns.HAS_ATTACKED) != ZERO) {
+                attackedSlot = slot(actions.get(ActionColumns.ATTACKED_X, i),
+                        actions.get(ActionColumns.ATTACKED_Y, i));
+            }
+            program.add(opcode, actions.get(ActionColumns.HAND_IDX, i), attackerSlot,
+                    attackedSlot, actions.get(ActionColumns.AFFECTED_ROW, i),
+                    actions.get(ActionColumns.PLAYER_IDX, i),
+                    slot(actions.get(ActionColumns.X, i), actions.get(ActionColumns.Y, i)));
+        }
+        return program;
+    }
+
+    /**
+     * Turns an instruction back into the action it was compiled from, filling only the
+     * fields its command reads
+     * @param pc the index of the instruction
+     * @return the action
+     */
+    public ActionsInput decompile(final int pc) {
+        Command command = Command.fromOpcode(opcodes[pc]);
+        ActionsInput action = new ActionsInput();
+        action.setCommand(command.getCommandName());
+        switch (command) {
+            case PLACE_CARD:
+                action.setHandIdx(handIdx[pc]);
+                break;
+            case CARD_USES_ATTACK:
+            case CARD_USES_ABILITY:
+                action.setCardAttacker(coordinates(attacker[pc]));
+                action.setCardAttacked(coordinates(attacked[pc]));
+                break;
+            case USE_ATTACK_HERO:
+                action.setCardAttacker(coordinates(attacker[pc]));
+                break;
+            case USE_HERO_ABILITY:
+                action.setAffectedRow(affectedRow[pc]);
+                break;
+            case GET_PLAYER_DECK:
+            case GET_PLAYER_HERO:
+            case GET_CARDS_IN_HAND:
+            case GET_PLAYER_MANA:
+                action.setPlayerIdx(playerIdx[pc]);
+                break;
+            case GET_CARD_AT_POSITION:
+                if (position[pc] == OFF_BOARD) {
+                    action.setX(OFF_BOARD);
+                    action.setY(OFF_BOARD);
+                } else {
+                    action.setX(Board.row(position[pc]));
+                    action.setY(Board.column(position[pc]));
+                }
+                break;
+            default:
+                break;
+        }
+        return action;
+    }
+
+    /**
+     * @param slot a slot
+     * @return the position of the slot on the board, null for OFF_BOARD
+     */
+    private static Coordinates coordinates(final int slot) {
+        if (slot == OFF_BOARD) {
+            return null;
+        }
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(Board.row(slot));
+        coordinates.setY(Board.column(slot));
+        return coordinates;
+    }
+
+    /**
+     * @param coordinates a position on the board, may be missing
+     * @return the slot of the position, OFF_BOARD if it is missing or outside the board
+     */
+    private static int slot(final Coordinates coordinates) {
+        if (coordinates == null) {
+            return OFF_BOARD;
+        }
+        return slot(coordinates.getX(), coordinates.getY());
+    }
+
+    /**
+     * @param row the row of a position
+     * @param column the column of a position
+     * @return the slot of the position, OFF_BOARD if it is outside the board
+     */
+    private static int slot(final int row, final int column) {
+        if (row < ZERO || row >= Board.ROWS || column < ZERO || column >= Board.COLUMNS) {
+            return OFF_BOARD;
+        }
+        return Board.slot(row, column);
+    }
+
+    /**
+     * Appends an instruction to the program
+     * @param opcode the opcode of the command
+     * @param hand the index of the card in hand
+     * @param attackerSlot the slot of the attacker
+     * @param attackedSlot the slot of the attacked card
+     * @param row the affected row
+     * @param player the index of the player
+     * @param positionSlot the slot of the queried position
+     */
+    public void add(final int opcode, final int hand, final int attackerSlot,
+                    final int attackedSlot, final int row, final int player,
+                    final int positionSlot) {
+        if (size == opcodes.length) {
+            int length = size * 2;
+            opcodes = Arrays.copyOf(opcodes, length);
+            handIdx = Arrays.copyOf(handIdx, length);
+            attacker = Arrays.copyOf(attacker, length);
+            attacked = Arrays.copyOf(attacked, length);
+            affectedRow = Arrays.copyOf(affectedRow, length);
+            playerIdx = Arrays.copyOf(playerIdx, length);
+            position = Arrays.copyOf(position, length);
+        }
+        opcodes[size] = opcode;
+        handIdx[size] = hand;
+        attacker[size] = attackerSlot;
+        attacked[size] = attackedSlot;
+        affectedRow[size] = row;
+        playerIdx[size] = player;
+        position[size] = positionSlot;
+        size++;
+    }
+
+    /**
+     * Appends a copy of an instruction of another program
+     * @param other the other program
+     * @param pc the index of the instruction in the other program
+     */
+    public void add(final Program other, final int pc) {
+        add(other.opcodes[pc], other.handIdx[pc], other.attacker[pc], other.attacked[pc],
+                other.affectedRow[pc], other.playerIdx[pc], other.position[pc]);
+    }
+
+    /**
+     * Removes every instruction, keeping the arrays for reuse
+     */
+    public void clear() {
+        size = ZERO;
+    }
+
+    /**
+     * @return the number of instructions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param pc the index of the instruction
+     * @return the opcode of the instruction
+     */
+    public int getOpcode(final int pc) {
+        return opcodes[pc];
+    }
+
+    /**
+     * @param pc the index of the instruction
+     * @return the index of the card in hand
+     */
+    public int getHandIdx(final int pc) {
+        return handIdx[pc];
+    }
+
+    /**
+     * @param pc the index of the instruction
+     * @return the slot of the attacker
+     */
+    public int getAttacker(final int pc) {
+        return attacker[pc];
+    }
+
+    /**
+     * @param pc the index of the instruction
+     * @return the slot of the attacked card
+     */
+    public int getAttacked(final int pc) {
+        return attacked[pc];
+    }
+
+    /**
+     * @param pc the index of the instruction
+     * @return the affected row
+     */
+    public int getAffectedRow(final int pc) {
+        return affectedRow[pc];
+    }
+
+    /**
+     * @param pc the index of the instruction
+     * @return the index of the player, 0 if the action does not name one
+     */
+    public int getPlayerIdx(final int pc) {
+        return playerIdx[pc];
+    }
+
+    /**
+     * @param pc the index of the instruction
+     * @return the slot of the queried position
+     */
+    public int getPosition(final int pc) {
+        return position[pc];
+    }
+}
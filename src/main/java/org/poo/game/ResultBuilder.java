@@ -0,0 +1,116 @@
+package org.poo.game;
+
+import org.poo.hero.HeroCard;
+import org.poo.players.Card;
+import org.poo.players.CardDefinition;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+
+/**
+ * Builds the JSON nodes of the results. It holds no state besides the node factory,
+ * so a single instance can be shared by every game, on any thread.
+ */
+public final class ResultBuilder {
+    private final JsonNodeFactory factory;
+
+    public ResultBuilder(final JsonNodeFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return a new empty object node
+     */
+    public ObjectNode object() {
+        return factory.objectNode();
+    }
+
+    /**
+     * @return a new empty array node
+     */
+    public ArrayNode array() {
+        return factory.arrayNode();
+    }
+
+    /**
+     * @param card the card, may be null
+     * @return the node describing the card, null if there is no card
+     */
+    public ObjectNode card(final Card card) {
+        if (card == null) {
+            return null;
+        }
+        return card(card.getDefinition(), card.getMana(), card.getAttackDamage(),
+                card.getHealth());
+    }
+
+    /**
+     * @param board the board of the game
+     * @param slot the slot of the card
+     * @return the node describing the card placed on the slot
+     */
+    public ObjectNode card(final Board board, final int slot) {
+        return card(board.getDefinition(slot), board.getMana(slot), board.getAttack(slot),
+                board.getHealth(slot));
+    }
+
+    /**
+     * @param hero the hero
+     * @return the node describing the hero
+     */
+    public ObjectNode hero(final HeroCard hero) {
+        ObjectNode node = factory.objectNode();
+        node.put("mana", hero.getMana());
+        node.put("description", hero.getDescription());
+        colors(node, hero.getColors());
+        node.put("name", hero.getName());
+        node.put("health", hero.getHealth());
+        return node;
+    }
+
+    /**
+     * @param slot the slot
+     * @return the node holding the coordinates of the slot
+     */
+    public ObjectNode coordinates(final int slot) {
+        ObjectNode node = factory.objectNode();
+        node.put("x", Board.row(slot));
+        node.put("y", Board.column(slot));
+        return node;
+    }
+
+    /**
+     * @param definition the definition of the card
+     * @param mana the mana of the card
+     * @param attackDamage the attack damage of the card
+     * @param health the health of the card
+     * @return the node describing the card
+     */
+    private ObjectNode card(final CardDefinition definition, final int mana,
+                            final int attackDamage, final int health) {
+        ObjectNode node = factory.objectNode();
+        node.put("mana", mana);
+        node.put("attackDamage", attackDamage);
+        node.put("health", health);
+        node.put("description", definition.getDescription());
+        colors(node, definition.getColors());
+        node.put("name", definition.getName());
+        return node;
+    }
+
+    /**
+     * Adds the colors array to a node, an empty one if there are no colors
+     * @param node the node
+     * @param colors the colors
+     */
+    private void colors(final ObjectNode node, final List<String> colors) {
+        ArrayNode array = node.putArray("colors");
+        if (colors != null) {
+            for (String color : colors) {
+                array.add(color);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.poo.game;
+
+import org.poo.players.Card;
+import org.poo.players.Player;
+
+import java.util.List;
+
+/**
+ * A 64 bit Zobrist hash of the state of a game: the cards on the board with their stats,
+ * frozen and has attacked flags, the has attacked flags of the empty slots, the linked
+ * columns, both hands, the deck cursors, the mana, hero health and flags, the side to
+ * move, the round and the parity of the turn. Every feature has a key and the hash is the
+ * xor of the keys of the features present, so a change toggles out the key of the old
+ * value and toggles in the key of the new one. The values are unbounded ints, so the keys
+ * are mixed from the feature, its owner, its position and its value instead of being read
+ * from tables.
+ */
+public final class StateHasher {
+    static final int CARD = 0;
+    static final int ATTACK = 1;
+    static final int HEALTH = 2;
+    static final int FROZEN = 3;
+    static final int ATTACKED = 4;
+    static final int HAND = 5;
+    static final int DECK = 6;
+    static final int MANA = 7;
+    static final int HERO_HEALTH = 8;
+    static final int HERO_ATTACKED = 9;
+    static final int HERO_DEAD = 10;
+    static final int TURN = 11;
+    static final int ROUND = 12;
+    static final int TURN_PARITY = 13;
+    static final int LINKED = 14;
+    static final int BOARD = 0;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private static final long MIX_ONE = 0xBF58476D1CE4E5B9L;
+    private static final long MIX_TWO = 0x94D049BB133111EBL;
+    private static final int SHIFT_ONE = 30;
+    private static final int SHIFT_TWO = 27;
+    private static final int SHIFT_THREE = 31;
+    private static final int BYTE = 8;
+    private static final int SHORT = 16;
+    private static final int INT = 32;
+
+    private long hash;
+
+    /**
+     * @return the hash of the current state
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @param value the hash saved before the state was restored
+     */
+    void setHash(final long value) {
+        hash = value;
+    }
+
+    /**
+     * Adds a feature to the hash if it is absent, removes it otherwise
+     * @param feature the feature
+     * @param owner the player the feature belongs to, BOARD for the board
+     * @param index the position of the feature
+     * @param value the value of the feature
+     */
+    void toggle(final int feature, final int owner, final int index, final int value) {
+        hash ^= key(feature, owner, index, value);
+    }
+
+    /**
+     * Replaces the value of a feature
+     * @param feature the feature
+     * @param owner the player the feature belongs to, BOARD for the board
+     * @param index the position of the feature
+     * @param from the old value
+     * @param to the new value
+     */
+    void change(final int feature, final int owner, final int index, final int from,
+                final int to) {
+        if (from != to) {
+            hash ^= key(feature, owner, index, from) ^ key(feature, owner, index, to);
+        }
+    }
+
+    /**
+     * Toggles every bit set in the difference of two masks of slots
+     * @param feature the feature the masks hold
+     * @param from the old mask
+     * @param to the new mask
+     */
+    void changeMask(final int feature, final int from, final int to) {
+        for (int changed = from ^ to; changed != 0; changed &= changed - 1) {
+            hash ^= key(feature, BOARD, Integer.numberOfTrailingZeros(changed), 1);
+        }
+    }
+
+    /**
+     * Toggles a card in a hand
+     * @param player the owner of the hand
+     * @param position the position of the card in the hand
+     * @param card the card
+     */
+    void toggleHand(final Player player, final int position, final Card card) {
+        hash ^= key(HAND, player.getIdx(), position, card.getId());
+    }
+
+    /**
+     * Toggles the cards of a hand from a position on
+     * @param player the owner of the hand
+     * @param from the first position
+     */
+    void toggleHand(final Player player, final int from) {
+        List<Card> hand = player.getHand();
+        for (int position = from; position < hand.size(); position++) {
+            toggleHand(player, position, hand.get(position));
+        }
+    }
+
+    /**
+     * @param value a boolean
+     * @return 1 for true, 0 for false
+     */
+    static int bit(final boolean value) {
+        return value ? 1 : 0;
+    }
+
+    /**
+     * @param feature the feature
+     * @param owner the player the feature belongs to, BOARD for the board
+     * @param index the position of the feature
+     * @param value the value of the feature
+     * @return the key of the feature having that value
+     */
+    static long key(final int feature, final int owner, final int index, final int value) {
+        long z = ((long) feature << (INT + SHORT + BYTE)) ^ ((long) owner << (INT + SHORT))
+                ^ ((long) index << INT) ^ (value & 0xFFFFFFFFL);
+        z += GOLDEN;
+        z = (z ^ (z >>> SHIFT_ONE)) * MIX_ONE;
+        z = (z ^ (z >>> SHIFT_TWO)) * MIX_TWO;
+        return z ^ (z >>> SHIFT_THREE);
+    }
+
+    /**
+     * Recomputes the hash of a game from scratch
+     * @param game the game
+     * @return the hash of its state
+     */
+    public static long compute(final Game game) {
+        long full = key(ROUND, BOARD, 0, game.getRound())
+                ^ key(TURN_PARITY, BOARD, 0, game.getTurns() & 1);
+        Board board = game.getBoard();
+        for (int slot = 0; slot < Board.SLOTS; slot++) {
+            if (!board.isEmpty(slot)) {
+                full ^= key(CARD, BOARD, slot, board.getId(slot))
+                        ^ key(ATTACK, BOARD, slot, board.getAttack(slot))
+                        ^ key(HEALTH, BOARD, slot, board.getHealth(slot));
+            }
+            if (board.isFrozen(slot)) {
+                full ^= key(FROZEN, BOARD, slot, 1);
+            }
+            if (board.hasAttacked(slot)) {
+                full ^= key(ATTACKED, BOARD, slot, 1);
+            }
+            if (board.isLinked(slot)) {
+                full ^= key(LINKED, BOARD, slot, 1);
+            }
+        }
+        return full ^ compute(game.getPlayerOne()) ^ compute(game.getPlayerTwo());
+    }
+
+    /**
+     * @param player a player
+     * @return the xor of the keys of the features of the player
+     */
+    private static long compute(final Player player) {
+        int idx = player.getIdx();
+        Card hero = player.getPlayerHero();
+        long full = key(DECK, idx, 0, player.getDeck().getCursor())
+                ^ key(MANA, idx, 0, player.getMana())
+                ^ key(HERO_HEALTH, idx, 0, hero.getHealth())
+                ^ key(HERO_ATTACKED, idx, 0, bit(hero.isHasAttacked()))
+                ^ key(HERO_DEAD, idx, 0, bit(hero.isDead()))
+                ^ key(TURN, idx, 0, bit(player.isTurn()));
+        List<Card> hand = player.getHand();
+        for (int position = 0; position < hand.size(); position++) {
+            full ^= key(HAND, idx, position, hand.get(position).getId());
+        }
+        return full;
+    }
+}
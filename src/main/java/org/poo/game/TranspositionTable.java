@@ -0,0 +1,157 @@
+package org.poo.game;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size table from the hashes of states to what a search learned about them,
+ * shared by any number of threads without locks. An entry is a value, a move and the
+ * depth the value was searched to, packed into a long by pack. Each slot holds the entry
+ * and the entry xored with its hash, so a slot torn by two threads writing it at once
+ * fails the check on the way out and reads as a miss. Which entry a slot keeps when two
+ * states collide on it is decided by a replacement policy.
+ */
+public final class TranspositionTable {
+    public static final long MISSING = 0L;
+    public static final int MAX_DEPTH = 0xFFFE;
+    public static final int MAX_MOVE = 0xFFFF;
+    private static final int SHORT = 16;
+    private static final int INT = 32;
+    private static final int SHORT_MASK = 0xFFFF;
+    private static final int MAX_BITS = 29;
+
+    /**
+     * Decides if an entry replaces the one stored in its slot
+     */
+    @FunctionalInterface
+    public interface ReplacementPolicy {
+        /**
+         * Always keeps the newest entry
+         */
+        ReplacementPolicy ALWAYS = (stored, storedHash, entry, hash) -> true;
+
+        /**
+         * Keeps the entry searched deeper, the newest one among entries of the same state
+         * or of the same depth
+         */
+        ReplacementPolicy DEPTH_PREFERRED = (stored, storedHash, entry, hash) ->
+                storedHash == hash || depth(entry) >= depth(stored);
+
+        /**
+         * @param stored the entry stored in the slot, MISSING if none
+         * @param storedHash the hash of the state of the stored entry
+         * @param entry the new entry
+         * @param hash the hash of the state of the new entry
+         * @return true if the new entry replaces the stored one
+         */
+        boolean replaces(long stored, long storedHash, long entry, long hash);
+    }
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final ReplacementPolicy policy;
+
+    /**
+     * @param bits the base two logarithm of the number of slots, at most MAX_BITS since
+     *             every slot takes two longs of an array indexed by int
+     * @param policy decides which entry a slot keeps
+     */
+    public TranspositionTable(final int bits, final ReplacementPolicy policy) {
+        if (bits < 0 || bits > MAX_BITS) {
+            throw new IllegalArgumentException("A table has between 1 and 2^" + MAX_BITS
+                    + " slots.");
+        }
+        this.slots = new AtomicLongArray(2 << bits);
+        this.mask = (1 << bits) - 1;
+        this.policy = policy;
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @param hash the hash of a state
+     * @return the entry of the state, MISSING if the table does not hold it
+     */
+    public long probe(final long hash) {
+        int slot = slot(hash);
+        long entry = slots.get(slot + 1);
+        if (entry == MISSING || (slots.get(slot) ^ entry) != hash) {
+            return MISSING;
+        }
+        return entry;
+    }
+
+    /**
+     * Stores the entry of a state if the policy lets it replace the one in its slot
+     * @param hash the hash of the state
+     * @param entry the entry, as packed by pack
+     * @return true if the entry was stored
+     */
+    public boolean store(final long hash, final long entry) {
+        int slot = slot(hash);
+        long stored = slots.get(slot + 1);
+        long storedHash = slots.get(slot) ^ stored;
+        if (stored != MISSING && !policy.replaces(stored, storedHash, entry, hash)) {
+            return false;
+        }
+        slots.set(slot, hash ^ entry);
+        slots.set(slot + 1, entry);
+        return true;
+    }
+
+    /**
+     * Empties every slot
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, MISSING);
+        }
+    }
+
+    /**
+     * @param hash the hash of a state
+     * @return the index of the first long of its slot
+     */
+    private int slot(final long hash) {
+        return ((int) hash & mask) << 1;
+    }
+
+    /**
+     * @param value the value of the state
+     * @param move the best move found in the state, between 0 and MAX_MOVE
+     * @param depth the depth the state was searched to, between 0 and MAX_DEPTH
+     * @return the entry holding them, which is never MISSING
+     */
+    public static long pack(final int value, final int move, final int depth) {
+        return ((long) value << INT) | ((long) (move & SHORT_MASK) << SHORT)
+                | ((depth + 1) & SHORT_MASK);
+    }
+
+    /**
+     * @param entry an entry
+     * @return the value of its state
+     */
+    public static int value(final long entry) {
+        return (int) (entry >> INT);
+    }
+
+    /**
+     * @param entry an entry
+     * @return the best move found in its state
+     */
+    public static int move(final long entry) {
+        return (int) (entry >>> SHORT) & SHORT_MASK;
+    }
+
+    /**
+     * @param entry an entry
+     * @return the depth its state was searched to
+     */
+    public static int depth(final long entry) {
+        return ((int) entry & SHORT_MASK) - 1;
+    }
+}
@@ -1,17 +1,14 @@
 package org.poo.hero;
 
 import org.poo.players.Card;
+import org.poo.players.CardRegistry;
 
-import java.util.ArrayList;
+import java.util.List;
 
 public class HeroCard extends Card {
 
-    public HeroCard(final int mana, final String description,
-                    final ArrayList<String> colors, final String name) {
-        super(mana, description, colors, name);
-    }
-
-    public HeroCard() {
-        super();
+    public HeroCard(final CardRegistry cards, final int mana, final String description,
+                    final List<String> colors, final String name) {
+        super(cards, mana, description, colors, name);
     }
 }
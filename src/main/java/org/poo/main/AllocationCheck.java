@@ -0,0 +1,126 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.ThreadMXBean;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.game.Command;
+import org.poo.game.Game;
+import org.poo.game.Program;
+import org.poo.output.DiscardingSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Checks that the engine allocates nothing while it runs the actions changing a game, when
+ * the results are dropped. Every game of the input files is played once to warm the engine
+ * up, then once more with the bytes allocated by the thread read around each action. Any
+ * action other than a query allocating a byte fails the check. The JVM itself allocates
+ * now and then on the thread, when it recompiles a method, so a game is played again when
+ * an action allocates, and only fails the check if it allocates every time.
+ */
+public final class AllocationCheck {
+    private static final int TRIES = 3;
+
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long thread = Thread.currentThread().getId();
+    private long measured;
+
+    /**
+     * for coding style
+     */
+    private AllocationCheck() {
+    }
+
+    /**
+     * @param args the input files, every file of the input directory if none is given
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void main(final String[] args) throws IOException {
+        List<File> files = new ArrayList<>();
+        if (args.length == 0) {
+            files.addAll(List.of(Objects.requireNonNull(
+                    new File(CheckerConstants.TESTS_PATH).listFiles())));
+        } else {
+            for (String arg : args) {
+                files.add(new File(arg));
+            }
+        }
+        AllocationCheck check = new AllocationCheck();
+        if (!check.threads.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("This JVM does not count the bytes "
+                    + "allocated by a thread.");
+        }
+        check.threads.setThreadAllocatedMemoryEnabled(true);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Input> inputs = new ArrayList<>();
+        for (File file : files) {
+            inputs.add(objectMapper.readValue(file, Input.class));
+        }
+        for (int i = 0; i < files.size(); i++) {
+            for (GameInput gameInput : inputs.get(i).getGames()) {
+                check.play(inputs.get(i), gameInput, false);
+            }
+        }
+        for (int i = 0; i < files.size(); i++) {
+            for (GameInput gameInput : inputs.get(i).getGames()) {
+                check.check(files.get(i), inputs.get(i), gameInput);
+            }
+        }
+        System.out.println(files.size() + " files, " + check.measured
+                + " actions run without allocating");
+    }
+
+    /**
+     * @param file the input file
+     * @param input the decks
+     * @param gameInput the game to be played
+     */
+    private void check(final File file, final Input input, final GameInput gameInput) {
+        long actions = 0;
+        for (int i = 0; i < TRIES; i++) {
+            actions = play(input, gameInput, true);
+            if (actions >= 0) {
+                measured += actions;
+                return;
+            }
+        }
+        int pc = (int) -(actions + 1);
+        throw new IllegalStateException("Action " + pc + " of " + file + ", "
+                + Program.compile(gameInput.getActions()).decompile(pc).getCommand()
+                + ", allocated bytes in each of " + TRIES + " games.");
+    }
+
+    /**
+     * @param input the decks
+     * @param gameInput the game to be played
+     * @param measure true to read the bytes allocated by each action
+     * @return the number of actions measured, or -1 - pc if the action at pc allocated
+     */
+    private long play(final Input input, final GameInput gameInput, final boolean measure) {
+        Game game = new Game(input, gameInput, null, DiscardingSink.INSTANCE);
+        game.startGame();
+        Program program = Program.compile(gameInput.getActions());
+        long actions = 0;
+        for (int pc = 0; pc < program.size(); pc++) {
+            if (!measure || Command.fromOpcode(program.getOpcode(pc)).isQuery()) {
+                game.execute(program, pc);
+                continue;
+            }
+            long before = threads.getThreadAllocatedBytes(thread);
+            game.execute(program, pc);
+            if (threads.getThreadAllocatedBytes(thread) != before) {
+                return -1 - pc;
+            }
+            actions++;
+        }
+        return actions;
+    }
+}
@@ -0,0 +1,189 @@
+package org.poo.main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the engine loaded between runs, so a run does not pay for starting the JVM,
+ * loading Jackson and warming up the JIT. The daemon listens on a Unix domain socket
+ * (--unix path) or on a localhost port (--port n, DEFAULT_PORT if nothing is given) and
+ * reads one job per line, its fields separated by tabs:
+ *
+ *   run, the input file, the output file and any options of RunOptions.with
+ *   stop
+ *
+ * and answers every line with "ok" followed by the time the job took in milliseconds, or
+ * with "error" followed by what went wrong. Every job runs through Main.run, which keeps
+ * all of its state local, so connections are served in parallel.
+ */
+public final class Daemon {
+    public static final int DEFAULT_PORT = 7654;
+    public static final String SEPARATOR = "\t";
+    public static final String RUN = "run";
+    public static final String STOP = "stop";
+    public static final String OK = "ok";
+    public static final String ERROR = "error";
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int OPTIONS_START = 3;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+    private final RunOptions defaults = RunOptions.fromSystemProperties();
+    private final ExecutorService connections = Executors.newFixedThreadPool(THREADS);
+    private volatile boolean stopped;
+
+    private Daemon(final ServerSocketChannel server, final Path socketFile) {
+        this.server = server;
+        this.socketFile = socketFile;
+    }
+
+    /**
+     * @param args --unix and a socket path, or --port and a port
+     * @throws IOException in case of exceptions to listening
+     */
+    public static void main(final String[] args) throws IOException {
+        SocketAddress address = address(args);
+        ServerSocketChannel server = listen(address);
+        Path socketFile = null;
+        if (address instanceof UnixDomainSocketAddress) {
+            socketFile = ((UnixDomainSocketAddress) address).getPath();
+        }
+        System.out.println("listening on " + address);
+        new Daemon(server, socketFile).serve();
+    }
+
+    /**
+     * @param address a Unix domain socket address or a port
+     * @return a server listening on the address, replacing a socket file left behind
+     * @throws IOException in case of exceptions to binding
+     */
+    public static ServerSocketChannel listen(final SocketAddress address) throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            return ServerSocketChannel.open(StandardProtocolFamily.UNIX).bind(address);
+        }
+        return ServerSocketChannel.open().bind(address);
+    }
+
+    /**
+     * @param args --unix and a socket path, or --port and a port
+     * @return the address named by the arguments, the default port if there are none
+     */
+    public static SocketAddress address(final String[] args) {
+        return address(args, DEFAULT_PORT);
+    }
+
+    /**
+     * @param args --unix and a socket path, or --port and a port
+     * @param defaultPort the port used if there are no arguments
+     * @return the address named by the arguments
+     */
+    public static SocketAddress address(final String[] args, final int defaultPort) {
+        if (args.length == 2 && args[0].equals("--unix")) {
+            return UnixDomainSocketAddress.of(args[1]);
+        }
+        int port = defaultPort;
+        if (args.length == 2 && args[0].equals("--port")) {
+            port = Integer.parseInt(args[1]);
+        } else if (args.length != 0) {
+            throw new IllegalArgumentException("Usage: [--unix path | --port port]");
+        }
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Accepts connections until a stop job arrives
+     * @throws IOException in case of exceptions to accepting
+     */
+    private void serve() throws IOException {
+        try {
+            while (!stopped) {
+                SocketChannel connection = server.accept();
+                connections.execute(() -> handle(connection));
+            }
+        } catch (AsynchronousCloseException e) {
+            if (!stopped) {
+                throw e;
+            }
+        } finally {
+            connections.shutdownNow();
+            server.close();
+            if (socketFile != null) {
+                Files.deleteIfExists(socketFile);
+            }
+        }
+    }
+
+    /**
+     * Runs the jobs sent on a connection until it is closed
+     * @param connection the connection
+     */
+    private void handle(final SocketChannel connection) {
+        try (connection;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     Channels.newInputStream(connection), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                     Channels.newOutputStream(connection), StandardCharsets.UTF_8))) {
+            for (String line = in.readLine(); line != null && !stopped; line = in.readLine()) {
+                out.println(job(line.split(SEPARATOR)));
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (!stopped) {
+                System.err.println("connection failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * @param fields the fields of a job
+     * @return the answer to the job
+     */
+    private String job(final String[] fields) {
+        if (fields.length == 1 && fields[0].equals(STOP)) {
+            stopped = true;
+            try {
+                server.close();
+            } catch (IOException e) {
+                return ERROR + " " + e.getMessage();
+            }
+            return OK;
+        }
+        if (fields.length < OPTIONS_START || !fields[0].equals(RUN)) {
+            return ERROR + " expected run, input, output and options, or stop";
+        }
+        long start = System.nanoTime();
+        try {
+            List<String> options = Arrays.asList(fields).subList(OPTIONS_START, fields.length);
+            Main.run(new File(fields[1]), new File(fields[2]), defaults.with(options));
+        } catch (IOException | RuntimeException e) {
+            String message = String.valueOf(e.getMessage()).replace('\n', ' ');
+            System.out.println(fields[1] + ": " + message);
+            return ERROR + " " + message;
+        }
+        String millis = String.format("%.3f", (System.nanoTime() - start) / NANOS_PER_MILLI);
+        System.out.println(fields[1] + ": " + millis + " ms");
+        return OK + " " + millis;
+    }
+}
@@ -0,0 +1,68 @@
+package org.poo.main;
+
+import org.poo.checker.CheckerConstants;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Scanner;
+
+/**
+ * Same as Test, but the input file is run by a Daemon instead of this JVM. The file name
+ * is read from the standard input; "stop" stops the daemon instead.
+ */
+public final class DaemonClient {
+    /**
+     * for coding style
+     */
+    private DaemonClient() {
+    }
+
+    /**
+     * @param args --unix and a socket path, or --port and a port, as given to the daemon
+     * @throws IOException in case of exceptions to connecting
+     */
+    public static void main(final String[] args) throws IOException {
+        Scanner scanner = new Scanner(System.in);
+        String fileName = scanner.next();
+        String job;
+        if (fileName.equals(Daemon.STOP)) {
+            job = Daemon.STOP;
+        } else {
+            File[] inputDir = new File(CheckerConstants.TESTS_PATH).listFiles();
+            if (inputDir == null) {
+                return;
+            }
+            Arrays.sort(inputDir);
+            File input = null;
+            for (File file : inputDir) {
+                if (file.getName().equalsIgnoreCase(fileName)) {
+                    input = file;
+                    break;
+                }
+            }
+            if (input == null) {
+                return;
+            }
+            job = String.join(Daemon.SEPARATOR, Daemon.RUN, input.getAbsolutePath(),
+                    new File(CheckerConstants.OUT_FILE).getAbsolutePath());
+        }
+
+        try (SocketChannel connection = SocketChannel.open(Daemon.address(args));
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     Channels.newInputStream(connection), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                     Channels.newOutputStream(connection), StandardCharsets.UTF_8))) {
+            out.println(job);
+            out.flush();
+            System.out.println(in.readLine());
+        }
+    }
+}
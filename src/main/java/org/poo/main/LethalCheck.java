@@ -0,0 +1,368 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.game.Board;
+import org.poo.game.Command;
+import org.poo.game.Game;
+import org.poo.game.MoveGenerator;
+import org.poo.game.Program;
+import org.poo.game.TranspositionTable;
+import org.poo.output.DiscardingSink;
+import org.poo.players.Card;
+import org.poo.players.CardType;
+import org.poo.players.Player;
+import org.poo.sim.LethalSolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Checks the answers of the LethalSolver on every state of the games of the input files,
+ * and times it. Each lethal found is played on a copy of the game to make sure it kills.
+ * Each state the solver finds no lethal in is searched again by brute force, trying every
+ * legal action of the player on turn in every order until the turn ends, attacks on the
+ * hero first, with the states already refuted remembered under their hash. Unlike the
+ * solver, it does not care where the cards stand or which tank falls first: the only
+ * actions it leaves out are the attacks and abilities aimed at anything but an enemy tank,
+ * which cannot clear the way to the enemy hero. It only cuts off a state when the minions
+ * that can still act, on the board or from the hand, cannot deal the health of the enemy
+ * hero even all striking it, General Kocioraw raising each of them by one. No card of the
+ * player on turn leaves the board during the turn, so a row only takes the strongest of
+ * the cards in hand that fit in its free columns. The hero cannot
+ * be attacked while its front row holds a tank, and each column holding a tank takes the
+ * action of a minion to clear, unless Empress Thorina clears it, so the weakest minions
+ * are left out, one per tank. The brute force gives up on a state after visiting
+ * MAX_NODES states, and those are counted apart. The states whose enemy front row is full or holds
+ * linked columns, where destroying a card copies another one, are counted too, so the
+ * output shows that the check covers them.
+ */
+public final class LethalCheck {
+    private static final int MAX_NODES = 3_000_000;
+    private static final int TABLE_BITS = 20;
+    private static final int NANOS_PER_MICRO = 1000;
+    private static final int PASSES = 3;
+    private static final int USE_ATTACK_HERO = Command.USE_ATTACK_HERO.getOpcode();
+    private static final int CARD_USES_ATTACK = Command.CARD_USES_ATTACK.getOpcode();
+    private static final int CARD_USES_ABILITY = Command.CARD_USES_ABILITY.getOpcode();
+    private static final int USE_HERO_ABILITY = Command.USE_HERO_ABILITY.getOpcode();
+
+    private final LethalSolver solver = new LethalSolver();
+    private final Program found = new Program(0);
+    private final List<Program> moves = new ArrayList<>();
+    private int[] attacks = new int[Board.SLOTS];
+    private int[] hand = new int[Board.SLOTS];
+    private final TranspositionTable refuted = new TranspositionTable(TABLE_BITS,
+            TranspositionTable.ReplacementPolicy.ALWAYS);
+    private Game search;
+    private Game replay;
+    private int generation;
+    private int winsOne;
+    private int winsTwo;
+    private long nodes;
+    private boolean gaveUp;
+    private long states;
+    private long lethal;
+    private long refutedStates;
+    private long aliased;
+    private long tooLarge;
+    private long nanos;
+    private long slowest;
+
+    /**
+     * for coding style
+     */
+    private LethalCheck() {
+    }
+
+    /**
+     * @param args the input files, every file of the input directory if none is given
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void main(final String[] args) throws IOException {
+        List<File> files = new ArrayList<>();
+        if (args.length == 0) {
+            files.addAll(List.of(Objects.requireNonNull(
+                    new File(CheckerConstants.TESTS_PATH).listFiles())));
+        } else {
+            for (String arg : args) {
+                files.add(new File(arg));
+            }
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        LethalCheck check = new LethalCheck();
+        for (File file : files) {
+            Input input = objectMapper.readValue(file, Input.class);
+            List<GameInput> games = input.getGames();
+            for (int g = 0; g < games.size(); g++) {
+                check.check(file, g, input, games.get(g));
+            }
+        }
+        System.out.printf("%d states, %d lethal, %d refuted by brute force (%d with a full "
+                        + "or linked enemy front row), %d too large to refute, "
+                        + "%d solver nodes, %.2f us per state, %.2f us at most%n",
+                check.states, check.lethal, check.refutedStates, check.aliased,
+                check.tooLarge, check.solver.getNodes(),
+                (double) check.nanos / check.states / NANOS_PER_MICRO,
+                (double) check.slowest / NANOS_PER_MICRO);
+    }
+
+    /**
+     * Solves every state of a game
+     * @param file the input file
+     * @param index the index of the game in the file
+     * @param input the decks
+     * @param gameInput the game to be played
+     */
+    private void check(final File file, final int index, final Input input,
+                       final GameInput gameInput) {
+        Game game = new Game(input, gameInput, null, DiscardingSink.INSTANCE);
+        game.startGame();
+        game.setPlayerWins(0, 0);
+        replay = new Game(game.getCards(), input, gameInput, null, DiscardingSink.INSTANCE);
+        replay.startGame();
+        search = new Game(game.getCards(), input, gameInput, null, DiscardingSink.INSTANCE);
+        search.startGame();
+        search.getJournal().setRecording(true);
+        search.startHashing();
+        Program program = Program.compile(gameInput.getActions());
+        for (int pc = 0; pc < program.size(); pc++) {
+            found.clear();
+            long start = System.nanoTime();
+            boolean solved = solver.solve(game, found);
+            long elapsed = System.nanoTime() - start;
+            nanos += elapsed;
+            slowest = Math.max(slowest, elapsed);
+            states++;
+            String state = file + ", game " + index + ", before action " + pc;
+            if (solved) {
+                lethal++;
+                replay.copyFrom(game);
+                int wins = replay.getPlayerOne().getWins() + replay.getPlayerTwo().getWins();
+                replay.run(found);
+                if (replay.getPlayerOne().getWins() + replay.getPlayerTwo().getWins()
+                        == wins) {
+                    throw new IllegalStateException("The lethal found in " + state
+                            + " does not kill.");
+                }
+            } else {
+                refute(game, state);
+            }
+            game.execute(program, pc);
+        }
+    }
+
+    /**
+     * Searches a state the solver found no lethal in by brute force
+     * @param game the game, which is left untouched
+     * @param state the place of the state, for the messages
+     */
+    private void refute(final Game game, final String state) {
+        search.copyFrom(game);
+        winsOne = game.getPlayerOne().getWins();
+        winsTwo = game.getPlayerTwo().getWins();
+        generation++;
+        nodes = 0;
+        gaveUp = false;
+        boolean kills = kills(0);
+        if (gaveUp) {
+            tooLarge++;
+            return;
+        }
+        if (kills) {
+            throw new IllegalStateException("The solver found no lethal in " + state
+                    + ", but there is one.");
+        }
+        refutedStates++;
+        if (aliasing(game)) {
+            aliased++;
+        }
+    }
+
+    /**
+     * @param depth the number of actions taken since the state searched
+     * @return true if some actions of the player on turn kill the enemy hero this turn,
+     *         false if none do or if the search gave up
+     */
+    private boolean kills(final int depth) {
+        if (search.getPlayerOne().getWins() != winsOne
+                || search.getPlayerTwo().getWins() != winsTwo) {
+            return true;
+        }
+        if (++nodes > MAX_NODES) {
+            gaveUp = true;
+            return false;
+        }
+        if (!reachable()) {
+            return false;
+        }
+        long hash = search.getHasher().getHash();
+        long entry = refuted.probe(hash);
+        if (entry != TranspositionTable.MISSING
+                && TranspositionTable.value(entry) == generation) {
+            return false;
+        }
+        if (depth == moves.size()) {
+            moves.add(new Program(0));
+        }
+        Program candidates = moves.get(depth);
+        candidates.clear();
+        MoveGenerator.generate(search, candidates);
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (int pc = 1; pc < candidates.size(); pc++) {
+                if (pass(candidates.getOpcode(pc)) != pass || aimless(candidates, pc)) {
+                    continue;
+                }
+                search.execute(candidates, pc);
+                boolean kills = kills(depth + 1);
+                search.undo();
+                if (kills || gaveUp) {
+                    return kills;
+                }
+            }
+        }
+        refuted.store(hash, TranspositionTable.pack(generation, 0, 0));
+        return false;
+    }
+
+    /**
+     * An attack or ability aimed at a card other than an enemy tank neither clears the way
+     * to the enemy hero nor damages it, so it cannot be part of a lethal
+     * @param candidates the legal actions
+     * @param pc the index of an action
+     * @return true if the action is aimed at a card other than an enemy tank
+     */
+    private boolean aimless(final Program candidates, final int pc) {
+        int opcode = candidates.getOpcode(pc);
+        if (opcode != CARD_USES_ATTACK && opcode != CARD_USES_ABILITY) {
+            return false;
+        }
+        int target = candidates.getAttacked(pc);
+        Player enemy = onTurn(search) == search.getPlayerOne() ? search.getPlayerTwo()
+                : search.getPlayerOne();
+        return !search.getBoard().isTank(target) || Board.row(target) != enemy.getFrontRow();
+    }
+
+    /**
+     * Attacks on the hero come first, then the other attacks and the abilities, then the
+     * rest, so that a lethal is found long before the search would give up
+     * @param opcode the opcode of an action
+     * @return the pass of the search trying the action
+     */
+    private static int pass(final int opcode) {
+        if (opcode == USE_ATTACK_HERO) {
+            return 0;
+        }
+        if (opcode == CARD_USES_ATTACK || opcode == CARD_USES_ABILITY
+                || opcode == USE_HERO_ABILITY) {
+            return 1;
+        }
+        return 2;
+    }
+
+    /**
+     * @return false if the minions of the player on turn cannot deal the health of the
+     *         enemy hero, even all striking it
+     */
+    private boolean reachable() {
+        Player player = onTurn(search);
+        Player enemy = player == search.getPlayerOne() ? search.getPlayerTwo()
+                : search.getPlayerOne();
+        Board board = search.getBoard();
+        int actors = 0;
+        for (int row = 0; row < Board.ROWS; row++) {
+            if (row != player.getFrontRow() && row != player.getBackRow()) {
+                continue;
+            }
+            for (int column = 0; column < board.getOccupied(row); column++) {
+                int slot = Board.slot(row, column);
+                if (!board.isEmpty(slot) && !board.isFrozen(slot) && !board.hasAttacked(slot)) {
+                    actors = addActor(actors, board.getAttack(slot));
+                }
+            }
+            CardType.Placement placement = row == player.getFrontRow()
+                    ? CardType.Placement.FRONT : CardType.Placement.BACK;
+            int placeable = 0;
+            for (Card card : player.getHand()) {
+                if (card.getMana() <= player.getMana()
+                        && card.getDefinition().getType().getPlacement() == placement) {
+                    if (placeable == hand.length) {
+                        hand = Arrays.copyOf(hand, placeable * 2);
+                    }
+                    hand[placeable++] = card.getAttackDamage();
+                }
+            }
+            Arrays.sort(hand, 0, placeable);
+            int free = Board.COLUMNS - board.getOccupied(row);
+            for (int i = Math.max(placeable - free, 0); i < placeable; i++) {
+                actors = addActor(actors, hand[i]);
+            }
+        }
+        Card hero = player.getPlayerHero();
+        boolean ability = !hero.isHasAttacked() && hero.getMana() <= player.getMana();
+        CardType heroType = hero.getDefinition().getType();
+        int blockers = board.getTanks(player.getBackRow() == 0 ? 2 : 1);
+        if (ability && heroType == CardType.EMPRESS_THORINA && blockers > 0) {
+            blockers--;
+        }
+        Arrays.sort(attacks, 0, actors);
+        int damage = 0;
+        for (int i = blockers; i < actors; i++) {
+            damage += attacks[i];
+        }
+        if (ability && heroType == CardType.GENERAL_KOCIORAW) {
+            damage += actors;
+        }
+        return damage >= enemy.getPlayerHero().getHealth();
+    }
+
+    /**
+     * @param actors the number of minions collected so far
+     * @param attack the attack damage of one more minion that can act
+     * @return the number of minions collected
+     */
+    private int addActor(final int actors, final int attack) {
+        if (actors == attacks.length) {
+            attacks = Arrays.copyOf(attacks, actors * 2);
+        }
+        attacks[actors] = Math.max(attack, 0);
+        return actors + 1;
+    }
+
+    /**
+     * @param game a game
+     * @return the player on turn
+     */
+    private static Player onTurn(final Game game) {
+        if (game.getPlayerOne().isTurn()) {
+            return game.getPlayerOne();
+        }
+        return game.getPlayerTwo();
+    }
+
+    /**
+     * @param game the game
+     * @return true if the front row of the enemy of the player on turn is full or holds
+     *         linked columns
+     */
+    private static boolean aliasing(final Game game) {
+        Player player = onTurn(game);
+        int row = player.getBackRow() == 0 ? 2 : 1;
+        Board board = game.getBoard();
+        if (board.getOccupied(row) == Board.COLUMNS) {
+            return true;
+        }
+        for (int column = 1; column < Board.COLUMNS; column++) {
+            if (board.isLinked(Board.slot(row, column))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,24 +1,45 @@
 package org.poo.main;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.checker.Checker;
 import org.poo.checker.CheckerConstants;
+import org.poo.fileio.ActionColumns;
 import org.poo.fileio.GameInput;
-import org.poo.fileio.Input;
+import org.poo.fileio.GameSource;
+import org.poo.fileio.InputReader;
+import org.poo.fileio.MappedInputReader;
+import org.poo.fileio.ReplayFormat;
+import org.poo.fileio.ReplayReader;
+import org.poo.fileio.StartGameInput;
+import org.poo.game.Command;
+import org.poo.game.Program;
+import org.poo.output.JsonGeneratorSink;
+import org.poo.output.OutputSink;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The entry point to this homework. It runs the checker that tests your implentation.
  */
 public final class Main {
+    private static final RunOptions OPTIONS = RunOptions.fromSystemProperties();
+    private static final int THREADS = Integer.getInteger("gwentstone.threads",
+            Runtime.getRuntime().availableProcessors());
+    public static final String REPLAY_PATH = "replay/";
+
     /**
      * for coding style
      */
@@ -44,18 +65,56 @@ public final class Main {
         }
         Files.createDirectories(path);
 
+        List<File> files = new ArrayList<>();
         for (File file : Objects.requireNonNull(directory.listFiles())) {
             String filepath = CheckerConstants.OUT_PATH + file.getName();
             File out = new File(filepath);
             boolean isCreated = out.createNewFile();
             if (isCreated) {
-                action(file.getName(), filepath);
+                files.add(file);
             }
         }
+        runAll(files);
 
         Checker.calculateScore();
     }
 
+    /**
+     * Runs the input files on a pool of threads, the largest files first, and waits for all
+     * of them. Each file writes only its own output file, so the outputs are the same as
+     * those of a sequential run.
+     * @param files the input files
+     * @throws IOException if a file could not be run
+     */
+    private static void runAll(final List<File> files) throws IOException {
+        List<File> ordered = new ArrayList<>(files);
+        ordered.sort(Comparator.comparingLong(File::length).reversed());
+        int threads = Math.max(1, Math.min(THREADS, ordered.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (File file : ordered) {
+                runs.add(executor.submit(() -> {
+                    action(file.getName(), CheckerConstants.OUT_PATH + file.getName());
+                    return null;
+                }));
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running the input files.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Could not run an input file.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * @param filePath1 for input file
      * @param filePath2 for output file
@@ -63,11 +122,32 @@ public final class Main {
      */
     public static void action(final String filePath1,
                               final String filePath2) throws IOException {
+        run(new File(CheckerConstants.TESTS_PATH + filePath1), new File(filePath2), OPTIONS);
+    }
+
+    /**
+     * Runs an input file, with all of its state local to the call
+     * @param jsonFile the input file
+     * @param outputFile the output file
+     * @param options how the file is run
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void run(final File jsonFile, final File outputFile,
+                           final RunOptions options) throws IOException {
+        ReplayReader replay = openReplay(jsonFile);
+        if (replay != null) {
+            actionColumns(replay, outputFile, options);
+            return;
+        }
+        if (options.isMappedInput()) {
+            actionColumns(new MappedInputReader(jsonFile, Command.names()), outputFile,
+                    options);
+            return;
+        }
         ObjectMapper objectMapper = new ObjectMapper();
-        Input inputData = objectMapper.readValue(new File(CheckerConstants.TESTS_PATH + filePath1),
-                Input.class);
+        InputReader reader = new InputReader(jsonFile, objectMapper);
 
-        ArrayNode output = objectMapper.createArrayNode();
+        OutputSink output = new JsonGeneratorSink(outputFile, !options.isCompactOutput());
 
         /*
          * TODO Implement your function here
@@ -88,38 +168,81 @@ public final class Main {
          *
          */
 
-        for (GameInput game : inputData.getGames()) {
-            org.poo.game.Game newGame = getGame(game, inputData, output);
-            newGame.makeActions(game.getActions());
-
-            if (newGame.getPlayerOne().getWins() != 0) {
-                winsOne++;
-            } else if (newGame.getPlayerTwo().getWins() != 0) {
-                winsTwo++;
+        try (reader; output) {
+            RunContext context = new RunContext(reader.getInput(), output);
+            for (GameInput game = reader.nextGame(); game != null; game = reader.nextGame()) {
+                play(context, game, Program.compile(game.getActions()), options);
             }
+            context.finish();
         }
+    }
 
-        winsOne = 0;
-        winsTwo = 0;
+    /**
+     * Opens the replay of an input file, looked up by the name of the file in the replay
+     * directory. It is only used if the digest in its header is the digest of the file, so
+     * that neither an older version of the file nor another file of the same name is
+     * replayed in its place. A replay that cannot be read, or was written by another version
+     * of the format, is ignored the same way, the JSON file being read instead.
+     * @param jsonFile the input file
+     * @return the replay, null if there is no replay compiled from the file
+     * @throws IOException in case of exceptions to reading the input file
+     */
+    private static ReplayReader openReplay(final File jsonFile) throws IOException {
+        File replayFile = new File(REPLAY_PATH + jsonFile.getName() + ReplayFormat.EXTENSION);
+        if (!replayFile.isFile()) {
+            return null;
+        }
+        ReplayReader replay;
+        try {
+            replay = new ReplayReader(replayFile, Command.names());
+        } catch (IOException e) {
+            return null;
+        }
+        if (!Arrays.equals(replay.getSource(), ReplayFormat.digest(jsonFile))) {
+            return null;
+        }
+        return replay;
+    }
 
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        objectWriter.writeValue(new File(filePath2), output);
+    /**
+     * Same as run, but reads the actions of every game into primitive columns
+     * @param reader the source of the games
+     * @param outputFile the output file
+     * @param options how the file is run
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    private static void actionColumns(final GameSource reader, final File outputFile,
+                                      final RunOptions options) throws IOException {
+        OutputSink output = new JsonGeneratorSink(outputFile, !options.isCompactOutput());
+        ActionColumns actions = new ActionColumns();
+
+        try (reader; output) {
+            RunContext context = new RunContext(reader.getInput(), output);
+            for (StartGameInput startGame = reader.nextGame(actions); startGame != null;
+                    startGame = reader.nextGame(actions)) {
+                GameInput game = new GameInput();
+                game.setStartGame(startGame);
+                play(context, game, Program.compile(actions), options);
+            }
+            context.finish();
+        }
     }
 
     /**
+     * Plays a game right away, or in parallel with the next ones if games are run in parallel
+     * @param context the run of the file
      * @param game the game to be played
-     * @param inputData the input data
-     * @param output the output array
-     * @return the game
+     * @param program the compiled actions of the game
+     * @param options how the file is run
+     * @throws IOException in case of exceptions to writing
      */
-    private static org.poo.game.Game getGame(final GameInput game, final Input inputData,
-                                     final ArrayNode output) {
-        org.poo.game.Game newGame = new org.poo.game.Game(inputData, game, game.getActions(), output);
-        newGame.startGame();
-        newGame.setPlayerWins(winsOne, winsTwo);
-        return newGame;
+    private static void play(final RunContext context, final GameInput game,
+                             final Program program, final RunOptions options)
+            throws IOException {
+        if (options.isParallelGames()) {
+            context.submit(game, program);
+        } else {
+            context.play(game, program);
+        }
     }
-
-    private static int winsOne = 0;
-    private static int winsTwo = 0;
-}
\ No newline at end of file
+}
@@ -0,0 +1,140 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.game.Game;
+import org.poo.game.Program;
+import org.poo.output.DiscardingSink;
+import org.poo.sim.GreedyPolicy;
+import org.poo.sim.MctsPolicy;
+import org.poo.sim.Policy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Plays a game of an input file from its start, the tree search choosing the actions of
+ * one or both sides and the greedy policy those of the other, and prints the actions as
+ * they would appear in an input file, then the winner and the speed of the search.
+ */
+public final class MctsMatch {
+    private static final String USAGE = "Usage: MctsMatch input.json game "
+            + "(playouts | millis\"ms\") [one | two | both]";
+    private static final String MILLIS = "ms";
+    private static final List<String> SIDES = List.of("one", "two", "both");
+    private static final int MIN_ARGS = 3;
+    private static final int MAX_ARGS = 4;
+    private static final int GAME_ARG = 1;
+    private static final int BUDGET_ARG = 2;
+    private static final int SIDE_ARG = 3;
+    private static final int MAX_ACTIONS = 5000;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * for coding style
+     */
+    private MctsMatch() {
+    }
+
+    /**
+     * @param args the input file, the index of the game, the budget of a search as a number
+     *             of playouts or as milliseconds followed by ms, and the side played by
+     *             the search, one, two or both (both if not given)
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < MIN_ARGS || args.length > MAX_ARGS) {
+            fail("Expected 3 or 4 arguments.");
+        }
+        File file = new File(args[0]);
+        if (!file.isFile()) {
+            fail("No input file " + file + ".");
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        Input input = mapper.readValue(file, Input.class);
+        int index = parse(args[GAME_ARG], "game", 0);
+        if (index >= input.getGames().size()) {
+            fail(file + " has " + input.getGames().size() + " games.");
+        }
+        GameInput gameInput = input.getGames().get(index);
+        String budget = args[BUDGET_ARG];
+        MctsPolicy search;
+        if (budget.endsWith(MILLIS)) {
+            int millis = parse(budget.substring(0, budget.length() - MILLIS.length()),
+                    "budget", 1);
+            search = new MctsPolicy(Runtime.getRuntime().availableProcessors(),
+                    Integer.MAX_VALUE, millis, GreedyPolicy::new);
+        } else {
+            search = new MctsPolicy(Runtime.getRuntime().availableProcessors(),
+                    parse(budget, "budget", 1), 0, GreedyPolicy::new);
+        }
+        String side = args.length > SIDE_ARG ? args[SIDE_ARG] : "both";
+        if (!SIDES.contains(side)) {
+            fail("The side is one of " + SIDES + ", not " + side + ".");
+        }
+        Policy one = "two".equals(side) ? new GreedyPolicy() : search;
+        Policy two = "one".equals(side) ? new GreedyPolicy() : search;
+
+        Game game = new Game(input, gameInput, null, DiscardingSink.INSTANCE);
+        game.startGame();
+        game.setPlayerWins(0, 0);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        Random random = new Random(gameInput.getStartGame().getShuffleSeed());
+        Program program = new Program(1);
+        int actions = 0;
+        while (actions < MAX_ACTIONS && game.getPlayerOne().getWins() == 0
+                && game.getPlayerTwo().getWins() == 0) {
+            program.clear();
+            if (game.getPlayerOne().isTurn()) {
+                one.move(game, game.getPlayerOne(), random, program);
+            } else {
+                two.move(game, game.getPlayerTwo(), random, program);
+            }
+            System.out.println(mapper.writeValueAsString(program.decompile(0)));
+            game.run(program);
+            actions++;
+        }
+        String winner = "nobody";
+        if (game.getPlayerOne().getWins() != 0) {
+            winner = "player one";
+        } else if (game.getPlayerTwo().getWins() != 0) {
+            winner = "player two";
+        }
+        System.out.printf("%s won after %d actions, %d playouts in %.3f s, %.0f playouts/s%n",
+                winner, actions, search.getPlayouts(), search.getSearchNanos() / NANOS_PER_SECOND,
+                search.getPlayoutsPerSecond());
+    }
+
+    /**
+     * @param arg an argument
+     * @param name the name of the argument, for the message
+     * @param min the least value allowed
+     * @return the argument, as a number
+     */
+    private static int parse(final String arg, final String name, final int min) {
+        try {
+            int value = Integer.parseInt(arg);
+            if (value >= min) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            fail("The " + name + " is not a number: " + arg + ".");
+        }
+        fail("The " + name + " is less than " + min + ": " + arg + ".");
+        return -1;
+    }
+
+    /**
+     * Prints what is wrong with the arguments and the usage, then exits
+     * @param reason what is wrong with the arguments
+     */
+    private static void fail(final String reason) {
+        System.err.println(reason);
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,101 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.ActionsInput;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.game.Game;
+import org.poo.game.MoveGenerator;
+import org.poo.game.Program;
+import org.poo.output.DiscardingSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Counts the sequences of legal actions of each length up to a depth, from a position of
+ * a game of an input file, the way perft counts chess moves. A sequence stops early when
+ * a hero dies. The actions are applied to a single game and undone through its journal,
+ * and each depth prints its count and the positions visited per second.
+ */
+public final class Perft {
+    private static final int DEPTH_ARG = 2;
+    private static final int PLAYED_ARG = 3;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final Game game;
+    private Program[] moves = new Program[0];
+    private long positions;
+
+    public Perft(final Input input, final GameInput gameInput, final int playedActions) {
+        List<ActionsInput> actions = gameInput.getActions();
+        this.game = new Game(input, gameInput, gameInput.getActions(), DiscardingSink.INSTANCE);
+        game.startGame();
+        game.setPlayerWins(0, 0);
+        game.run(Program.compile(actions.subList(0, Math.min(playedActions, actions.size()))));
+        game.getJournal().setRecording(true);
+    }
+
+    /**
+     * @param args the input file, the index of the game, the depth and optionally the
+     *             number of actions of the game to play before counting
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void main(final String[] args) throws IOException {
+        Input input = new ObjectMapper().readValue(new File(args[0]), Input.class);
+        GameInput gameInput = input.getGames().get(Integer.parseInt(args[1]));
+        int depth = Integer.parseInt(args[DEPTH_ARG]);
+        int playedActions = args.length > PLAYED_ARG ? Integer.parseInt(args[PLAYED_ARG]) : 0;
+        Perft perft = new Perft(input, gameInput, playedActions);
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            perft.positions = 0;
+            long sequences = perft.count(d);
+            double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+            System.out.printf("depth %d: %d sequences, %.3f s, %.0f positions/s%n", d,
+                    sequences, seconds, perft.positions / seconds);
+        }
+    }
+
+    /**
+     * @param depth the number of actions of the sequences
+     * @return the number of sequences of legal actions of that length from the position
+     */
+    public long count(final int depth) {
+        if (moves.length < depth) {
+            moves = new Program[depth];
+            for (int i = 0; i < depth; i++) {
+                moves[i] = new Program(0);
+            }
+        }
+        return perft(depth);
+    }
+
+    /**
+     * @param depth the number of actions left
+     * @return the number of sequences of that length from the current position
+     */
+    private long perft(final int depth) {
+        positions++;
+        if (game.getPlayerOne().getWins() != 0 || game.getPlayerTwo().getWins() != 0) {
+            return 0;
+        }
+        if (depth == 0) {
+            return 1;
+        }
+        Program ply = moves[depth - 1];
+        ply.clear();
+        int count = MoveGenerator.generate(game, ply);
+        if (depth == 1) {
+            return count;
+        }
+        long sequences = 0;
+        for (int pc = 0; pc < count; pc++) {
+            game.execute(ply, pc);
+            sequences += perft(depth - 1);
+            game.undo();
+        }
+        return sequences;
+    }
+}
@@ -0,0 +1,115 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.ActionColumns;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.fileio.MappedInputReader;
+import org.poo.fileio.StartGameInput;
+import org.poo.game.Command;
+import org.poo.game.Program;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compares the time needed to read input files and compile their actions through
+ * ObjectMapper.readValue and through the memory mapped reader. Both paths are warmed up
+ * before they are measured, and each prints the best and the average time per round.
+ */
+public final class ReaderBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * for coding style
+     */
+    private ReaderBenchmark() {
+    }
+
+    /**
+     * @param args the input files, every file of the input directory if none is given
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void main(final String[] args) throws IOException {
+        List<File> files = new ArrayList<>();
+        if (args.length == 0) {
+            files.addAll(List.of(Objects.requireNonNull(
+                    new File(CheckerConstants.TESTS_PATH).listFiles())));
+        } else {
+            for (String arg : args) {
+                files.add(new File(arg));
+            }
+        }
+        long bytes = 0;
+        for (File file : files) {
+            bytes += file.length();
+        }
+        System.out.println(files.size() + " files, " + bytes + " bytes");
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        String[] commandNames = Command.names();
+        measure("ObjectMapper.readValue", () -> {
+            long instructions = 0;
+            for (File file : files) {
+                Input input = objectMapper.readValue(file, Input.class);
+                for (GameInput game : input.getGames()) {
+                    instructions += Program.compile(game.getActions()).size();
+                }
+            }
+            return instructions;
+        });
+        measure("MappedInputReader", () -> {
+            long instructions = 0;
+            ActionColumns actions = new ActionColumns();
+            for (File file : files) {
+                try (MappedInputReader reader = new MappedInputReader(file, commandNames)) {
+                    for (StartGameInput start = reader.nextGame(actions); start != null;
+                            start = reader.nextGame(actions)) {
+                        instructions += Program.compile(actions).size();
+                    }
+                }
+            }
+            return instructions;
+        });
+    }
+
+    /**
+     * A pass over every file
+     */
+    private interface Round {
+        /**
+         * @return the number of instructions read, so the work cannot be optimized away
+         * @throws IOException in case of exceptions to reading
+         */
+        long run() throws IOException;
+    }
+
+    /**
+     * @param name the name of the reader
+     * @param round a pass over every file
+     * @throws IOException in case of exceptions to reading
+     */
+    private static void measure(final String name, final Round round) throws IOException {
+        long instructions = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            instructions += round.run();
+        }
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            instructions += round.run();
+            long elapsed = System.nanoTime() - start;
+            best = Math.min(best, elapsed);
+            total += elapsed;
+        }
+        System.out.printf("%-24s best %10.3f ms, average %10.3f ms (%d instructions)%n", name,
+                best / NANOS_PER_MILLI, total / NANOS_PER_MILLI / ROUNDS, instructions);
+    }
+}
@@ -0,0 +1,70 @@
+package org.poo.main;
+
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.ActionColumns;
+import org.poo.fileio.MappedInputReader;
+import org.poo.fileio.ReplayFormat;
+import org.poo.fileio.ReplayWriter;
+import org.poo.fileio.StartGameInput;
+import org.poo.game.Command;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Objects;
+
+/**
+ * Compiles JSON inputs into binary replays, which Main.action then loads instead of the
+ * JSON files they were compiled from, as long as those files do not change. Without
+ * arguments every file of the input directory is compiled into the replay directory;
+ * otherwise the arguments are pairs of input and replay files.
+ */
+public final class ReplayCompiler {
+    /**
+     * for coding style
+     */
+    private ReplayCompiler() {
+    }
+
+    /**
+     * @param args pairs of input and replay files, or nothing
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length % 2 != 0) {
+            System.err.println("Usage: ReplayCompiler [input.json output.replay]...");
+            System.exit(1);
+        }
+        if (args.length == 0) {
+            Files.createDirectories(Paths.get(Main.REPLAY_PATH));
+            File directory = new File(CheckerConstants.TESTS_PATH);
+            for (File file : Objects.requireNonNull(directory.listFiles())) {
+                compile(file, new File(Main.REPLAY_PATH + file.getName()
+                        + ReplayFormat.EXTENSION));
+            }
+            return;
+        }
+        for (int i = 0; i < args.length; i += 2) {
+            compile(new File(args[i]), new File(args[i + 1]));
+        }
+    }
+
+    /**
+     * @param json the input file
+     * @param replay the replay file
+     * @throws IOException in case of exceptions to reading / writing
+     */
+    public static void compile(final File json, final File replay) throws IOException {
+        String[] commandNames = Command.names();
+        ActionColumns actions = new ActionColumns();
+        try (MappedInputReader reader = new MappedInputReader(json, commandNames);
+             ReplayWriter writer = new ReplayWriter(replay, commandNames, reader.getInput(),
+                     ReplayFormat.digest(json))) {
+            for (StartGameInput startGame = reader.nextGame(actions); startGame != null;
+                    startGame = reader.nextGame(actions)) {
+                writer.writeGame(startGame, actions);
+            }
+        }
+    }
+}
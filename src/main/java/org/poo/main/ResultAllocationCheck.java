@@ -0,0 +1,199 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.sun.management.ThreadMXBean;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.game.Game;
+import org.poo.game.Program;
+import org.poo.game.ResultBuilder;
+import org.poo.output.OutputSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Checks that the engine creates no ObjectMapper, node factory or result builder per action
+ * while it builds the results. Every game of the input files is played once to warm the
+ * engine up, then once more into a sink keeping the results, while a flight recording
+ * takes every object allocated by the thread and the bytes it allocates are read around
+ * each action. The check creates one ObjectMapper itself during the recording, to prove
+ * that it would see one, and fails if it finds any other. The JVM only reports every
+ * allocation when it allocates outside of thread local buffers, which takes running the
+ * check with -XX:+UseG1GC -XX:-UseTLAB.
+ */
+public final class ResultAllocationCheck {
+    private static final String EVENT = "jdk.ObjectAllocationOutsideTLAB";
+    private static final Set<String> FORBIDDEN = Set.of(ObjectMapper.class.getName(),
+            JsonNodeFactory.class.getName(), ResultBuilder.class.getName());
+
+    private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final long thread = Thread.currentThread().getId();
+    private final CountingSink sink = new CountingSink();
+    private long actions;
+    private long bytes;
+    private ObjectMapper control;
+
+    /**
+     * for coding style
+     */
+    private ResultAllocationCheck() {
+    }
+
+    /**
+     * @param args the input files, every file of the input directory if none is given
+     * @throws IOException in case of exceptions to reading or to the recording
+     */
+    public static void main(final String[] args) throws IOException {
+        List<File> files = new ArrayList<>();
+        if (args.length == 0) {
+            files.addAll(List.of(Objects.requireNonNull(
+                    new File(CheckerConstants.TESTS_PATH).listFiles())));
+        } else {
+            for (String arg : args) {
+                files.add(new File(arg));
+            }
+        }
+        HotSpotDiagnosticMXBean options =
+                ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (!Boolean.parseBoolean(options.getVMOption("UseG1GC").getValue())
+                || Boolean.parseBoolean(options.getVMOption("UseTLAB").getValue())) {
+            throw new UnsupportedOperationException("Run the check with -XX:+UseG1GC "
+                    + "-XX:-UseTLAB, so that every allocation is recorded.");
+        }
+        ResultAllocationCheck check = new ResultAllocationCheck();
+        check.threads.setThreadAllocatedMemoryEnabled(true);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Input> inputs = new ArrayList<>();
+        for (File file : files) {
+            inputs.add(objectMapper.readValue(file, Input.class));
+        }
+        for (Input input : inputs) {
+            check.playAll(input, false);
+        }
+
+        Path path = Files.createTempFile("allocations", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT).withStackTrace();
+            recording.start();
+            check.control = new ObjectMapper();
+            for (Input input : inputs) {
+                check.playAll(input, true);
+            }
+            recording.stop();
+            recording.dump(path);
+            check.report(files.size(), path);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Reads the recording and fails at the first forbidden object found besides the control
+     * @param files the number of input files
+     * @param path the file the recording was dumped to
+     * @throws IOException in case of exceptions to reading the recording
+     */
+    private void report(final int files, final Path path) throws IOException {
+        long objects = 0;
+        int mappers = 0;
+        try (RecordingFile recording = new RecordingFile(path)) {
+            while (recording.hasMoreEvents()) {
+                RecordedEvent event = recording.readEvent();
+                if (!EVENT.equals(event.getEventType().getName())
+                        || event.getThread() == null
+                        || event.getThread().getJavaThreadId() != thread) {
+                    continue;
+                }
+                objects++;
+                String name = event.getClass("objectClass").getName();
+                if (!FORBIDDEN.contains(name)) {
+                    continue;
+                }
+                if (name.equals(ObjectMapper.class.getName()) && mappers++ == 0) {
+                    continue;
+                }
+                StringBuilder stack = new StringBuilder();
+                for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                    stack.append("\n\tat ").append(frame.getMethod().getType().getName())
+                            .append('.').append(frame.getMethod().getName());
+                }
+                throw new IllegalStateException("A game allocated a " + name + stack);
+            }
+        }
+        if (mappers == 0 || control == null) {
+            throw new IllegalStateException("The recording missed the ObjectMapper created "
+                    + "by the check.");
+        }
+        System.out.println(files + " files, " + actions + " actions, " + sink.count
+                + " results, " + bytes + " bytes allocated by the actions, " + objects
+                + " objects allocated by the games, none of them an ObjectMapper, a node "
+                + "factory or a result builder");
+    }
+
+    /**
+     * Plays every game of an input into the counting sink
+     * @param input the decks and games
+     * @param measure true to read the bytes allocated by each action
+     */
+    private void playAll(final Input input, final boolean measure) {
+        for (GameInput gameInput : input.getGames()) {
+            Game game = new Game(input, gameInput, null, sink);
+            game.startGame();
+            game.setPlayerWins(0, 0);
+            Program program = Program.compile(gameInput.getActions());
+            for (int pc = 0; pc < program.size(); pc++) {
+                if (!measure) {
+                    game.execute(program, pc);
+                    continue;
+                }
+                long before = threads.getThreadAllocatedBytes(thread);
+                game.execute(program, pc);
+                bytes += threads.getThreadAllocatedBytes(thread) - before;
+                actions++;
+            }
+        }
+        if (!measure) {
+            sink.count = 0;
+        }
+    }
+
+    /**
+     * Keeps the results only long enough to count them, so the check measures what the
+     * engine allocates rather than the growth of a list
+     */
+    private static final class CountingSink implements OutputSink {
+        private long count;
+        private JsonNode last;
+
+        @Override
+        public void add(final JsonNode result) {
+            last = result;
+            count++;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.game.DeferredWins;
+import org.poo.game.Game;
+import org.poo.game.Program;
+import org.poo.output.ArrayNodeSink;
+import org.poo.output.OutputSink;
+import org.poo.players.CardRegistry;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+import lombok.Getter;
+
+/**
+ * The state of the run of one input file: its decks, the registry of their cards, the sink
+ * receiving its results and the number of games won by each player so far. Every file gets
+ * its own context, so files can be run on different threads.
+ *
+ * Games can also be submitted to run in parallel. Such a game starts with no wins and
+ * buffers its results, the statistics about the wins being deferred. The games are then
+ * finished in order: the wins of the games before each one resolve its deferred results,
+ * its results are written, and its own outcome is added to the wins.
+ */
+@Getter
+public final class RunContext {
+    private static final int PENDING_PER_THREAD = 4;
+    private static final int MAX_PENDING =
+            PENDING_PER_THREAD * ForkJoinPool.getCommonPoolParallelism();
+
+    private final Input input;
+    private final CardRegistry cards = new CardRegistry();
+    private final OutputSink output;
+    private final Deque<CompletableFuture<Outcome>> pending = new ArrayDeque<>();
+    private int winsOne;
+    private int winsTwo;
+
+    public RunContext(final Input input, final OutputSink output) {
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * Plays a game and counts its winner
+     * @param gameInput the game to be played
+     * @param program the compiled actions of the game
+     * @throws IOException in case of exceptions to writing
+     */
+    public void play(final GameInput gameInput, final Program program) throws IOException {
+        finish();
+        Game game = new Game(cards, input, gameInput, gameInput.getActions(), output);
+        game.startGame();
+        game.setPlayerWins(winsOne, winsTwo);
+        game.run(program);
+        output.flush();
+        count(game.getPlayerOne().getWins(), game.getPlayerTwo().getWins());
+    }
+
+    /**
+     * Starts a game on the common pool, finishing the oldest ones if too many are pending
+     * @param gameInput the game to be played
+     * @param program the compiled actions of the game
+     * @throws IOException in case of exceptions to writing
+     */
+    public void submit(final GameInput gameInput, final Program program) throws IOException {
+        pending.add(CompletableFuture.supplyAsync(() -> playDeferred(gameInput, program)));
+        while (pending.size() > MAX_PENDING) {
+            finishOldest();
+        }
+    }
+
+    /**
+     * Waits for every submitted game and writes their results
+     * @throws IOException in case of exceptions to writing
+     */
+    public void finish() throws IOException {
+        while (!pending.isEmpty()) {
+            finishOldest();
+        }
+    }
+
+    /**
+     * Counts the winner of a game, the way the games are tallied between two games
+     * @param gameWinsOne the wins of player one at the end of the game
+     * @param gameWinsTwo the wins of player two at the end of the game
+     */
+    private void count(final int gameWinsOne, final int gameWinsTwo) {
+        if (gameWinsOne != 0) {
+            winsOne++;
+        } else if (gameWinsTwo != 0) {
+            winsTwo++;
+        }
+    }
+
+    /**
+     * @param gameInput the game to be played
+     * @param program the compiled actions of the game
+     * @return the buffered results and the outcome of the game
+     */
+    private Outcome playDeferred(final GameInput gameInput, final Program program) {
+        Outcome outcome = new Outcome();
+        try {
+            Game game = new Game(cards, input, gameInput, gameInput.getActions(),
+                    outcome.results);
+            game.setDeferredWins(outcome.deferred);
+            game.startGame();
+            game.setPlayerWins(0, 0);
+            game.run(program);
+            outcome.winsOne = game.getPlayerOne().getWins();
+            outcome.winsTwo = game.getPlayerTwo().getWins();
+        } catch (RuntimeException e) {
+            outcome.failure = e;
+        }
+        return outcome;
+    }
+
+    /**
+     * Writes the results of the oldest pending game and counts its winner
+     * @throws IOException in case of exceptions to writing
+     */
+    private void finishOldest() throws IOException {
+        Outcome outcome = pending.removeFirst().join();
+        for (DeferredWins deferred : outcome.deferred) {
+            deferred.resolve(winsOne, winsTwo);
+        }
+        for (JsonNode result : outcome.results.getResults()) {
+            output.add(result);
+        }
+        output.flush();
+        if (outcome.failure != null) {
+            pending.clear();
+            throw outcome.failure;
+        }
+        count(winsOne + outcome.winsOne, winsTwo + outcome.winsTwo);
+    }
+
+    /**
+     * What a game run in parallel leaves for the games after it
+     */
+    private static final class Outcome {
+        private final ArrayNodeSink results = new ArrayNodeSink();
+        private final List<DeferredWins> deferred = new ArrayList<>();
+        private int winsOne;
+        private int winsTwo;
+        private RuntimeException failure;
+    }
+}
@@ -0,0 +1,62 @@
+package org.poo.main;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * How an input file is run. The defaults come from the gwentstone.* system properties,
+ * and the daemon lets every job override them.
+ */
+@Getter
+public final class RunOptions {
+    private final boolean compactOutput;
+    private final boolean mappedInput;
+    private final boolean parallelGames;
+
+    public RunOptions(final boolean compactOutput, final boolean mappedInput,
+                      final boolean parallelGames) {
+        this.compactOutput = compactOutput;
+        this.mappedInput = mappedInput;
+        this.parallelGames = parallelGames;
+    }
+
+    /**
+     * @return the options set by the gwentstone.compactOutput, gwentstone.mappedInput and
+     *         gwentstone.parallelGames system properties
+     */
+    public static RunOptions fromSystemProperties() {
+        return new RunOptions(Boolean.getBoolean("gwentstone.compactOutput"),
+                Boolean.getBoolean("gwentstone.mappedInput"),
+                Boolean.getBoolean("gwentstone.parallelGames"));
+    }
+
+    /**
+     * @param options names of options, each one turning an option on, or off if it is
+     *                prefixed by "no-": compactOutput, mappedInput, parallelGames
+     * @return these options with the given ones changed
+     * @throws IllegalArgumentException if an option is unknown
+     */
+    public RunOptions with(final List<String> options) {
+        boolean compact = compactOutput;
+        boolean mapped = mappedInput;
+        boolean parallel = parallelGames;
+        for (String option : options) {
+            boolean value = !option.startsWith("no-");
+            switch (value ? option : option.substring("no-".length())) {
+                case "compactOutput":
+                    compact = value;
+                    break;
+                case "mappedInput":
+                    mapped = value;
+                    break;
+                case "parallelGames":
+                    parallel = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option + ".");
+            }
+        }
+        return new RunOptions(compact, mapped, parallel);
+    }
+}
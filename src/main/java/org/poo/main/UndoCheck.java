@@ -0,0 +1,257 @@
+package org.poo.main;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.game.Board;
+import org.poo.game.Game;
+import org.poo.game.MoveGenerator;
+import org.poo.game.Program;
+import org.poo.game.StateHasher;
+import org.poo.game.TranspositionTable;
+import org.poo.output.DiscardingSink;
+import org.poo.players.Card;
+import org.poo.players.CardRegistry;
+import org.poo.players.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Checks that undo restores the exact state of a game. Every game of the input files is
+ * played with its journal recording. Before each of its actions, the check does two
+ * things. It applies and undoes every legal action and the action of the file. It also
+ * applies a random sequence of legal actions and undoes all of them. Each time, it
+ * compares a dump of the whole state with the one taken before.
+ *
+ * The games also keep the hash of their state up to date. After every action and every
+ * undo, the check compares that hash with one recomputed from scratch. The dump of every
+ * state is stored in a transposition table under its hash, so two different states
+ * hashing the same are reported when the second one finds the first. The ids of the cards
+ * hashed are those of the registry of each file, so the table is cleared between files.
+ */
+public final class UndoCheck {
+    private static final int MAX_SEQUENCE = 8;
+    private static final int TABLE_BITS = 20;
+
+    private final Random random = new Random(0);
+    private final Program moves = new Program(0);
+    private final Program sequence = new Program(0);
+    private final TranspositionTable table = new TranspositionTable(TABLE_BITS,
+            TranspositionTable.ReplacementPolicy.ALWAYS);
+    private long undone;
+    private long hashed;
+    private long transpositions;
+
+    /**
+     * for coding style
+     */
+    private UndoCheck() {
+    }
+
+    /**
+     * @param args the input files, every file of the input directory if none is given
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void main(final String[] args) throws IOException {
+        List<File> files = new ArrayList<>();
+        if (args.length == 0) {
+            files.addAll(List.of(Objects.requireNonNull(
+                    new File(CheckerConstants.TESTS_PATH).listFiles())));
+        } else {
+            for (String arg : args) {
+                files.add(new File(arg));
+            }
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        UndoCheck check = new UndoCheck();
+        for (File file : files) {
+            Input input = objectMapper.readValue(file, Input.class);
+            CardRegistry cards = new CardRegistry();
+            check.table.clear();
+            for (GameInput gameInput : input.getGames()) {
+                check.check(cards, input, gameInput);
+            }
+        }
+        System.out.println(files.size() + " files, " + check.undone + " actions undone, "
+                + check.hashed + " hashes checked, " + check.transpositions
+                + " transpositions");
+    }
+
+    /**
+     * @param cards the registry of the cards of the file
+     * @param input the decks
+     * @param gameInput the game to be played
+     */
+    private void check(final CardRegistry cards, final Input input, final GameInput gameInput) {
+        Game game = new Game(cards, input, gameInput, gameInput.getActions(),
+                DiscardingSink.INSTANCE);
+        game.startGame();
+        game.setPlayerWins(0, 0);
+        game.getJournal().setRecording(true);
+        game.startHashing();
+        Program program = Program.compile(gameInput.getActions());
+        for (int pc = 0; pc < program.size(); pc++) {
+            String before = dump(game);
+            moves.clear();
+            MoveGenerator.generate(game, moves);
+            moves.add(program, pc);
+            for (int move = 0; move < moves.size(); move++) {
+                game.execute(moves, move);
+                checkHash(game);
+                undo(game, 1, before);
+            }
+
+            sequence.clear();
+            int length = random.nextInt(MAX_SEQUENCE) + 1;
+            for (int i = 0; i < length; i++) {
+                moves.clear();
+                MoveGenerator.generate(game, moves);
+                sequence.add(moves, random.nextInt(moves.size()));
+                game.execute(sequence, i);
+                checkHash(game);
+            }
+            undo(game, length, before);
+
+            game.execute(program, pc);
+        }
+    }
+
+    /**
+     * Undoes actions and compares the state with the one they were applied to
+     * @param game the game
+     * @param actions the number of actions to undo
+     * @param before the dump of the state before the actions
+     */
+    private void undo(final Game game, final int actions, final String before) {
+        for (int i = 0; i < actions; i++) {
+            if (!game.undo()) {
+                throw new IllegalStateException("Nothing left to undo.");
+            }
+            undone++;
+        }
+        game.getBoard().verify();
+        String after = dump(game);
+        if (!after.equals(before)) {
+            throw new IllegalStateException("Undo changed the state from\n" + before
+                    + "\nto\n" + after);
+        }
+        checkHash(game);
+    }
+
+    /**
+     * Compares the hash kept up to date by a game with the one of its state
+     * @param game the game
+     */
+    private void checkHash(final Game game) {
+        long hash = game.getHasher().getHash();
+        long computed = StateHasher.compute(game);
+        if (hash != computed) {
+            throw new IllegalStateException("The hash " + Long.toHexString(hash)
+                    + " should be " + Long.toHexString(computed) + " for\n" + dump(game));
+        }
+        hashed++;
+        int dumpHash = hashed(game).hashCode();
+        long entry = table.probe(hash);
+        if (entry != TranspositionTable.MISSING) {
+            if (TranspositionTable.value(entry) != dumpHash) {
+                throw new IllegalStateException("Two states hash to " + Long.toHexString(hash)
+                        + ", one of them being\n" + dump(game));
+            }
+            transpositions++;
+        }
+        table.store(hash, TranspositionTable.pack(dumpHash, 0, 0));
+    }
+
+    /**
+     * @param game a game
+     * @return every part of the state of the game, as text
+     */
+    private static String dump(final Game game) {
+        StringBuilder dump = new StringBuilder();
+        dump.append("turns ").append(game.getTurns()).append(" round ").append(game.getRound())
+                .append('\n');
+        dump(dump, game.getPlayerOne());
+        dump(dump, game.getPlayerTwo());
+        Board board = game.getBoard();
+        for (int row = 0; row < Board.ROWS; row++) {
+            dump.append("row ").append(row).append(" max ")
+                    .append(board.getMaxHealthColumn(row)).append(':');
+            for (int column = 0; column < board.getOccupied(row); column++) {
+                int slot = Board.slot(row, column);
+                dump.append(' ').append(board.getDefinition(slot).getName())
+                        .append('/').append(board.getMana(slot))
+                        .append('/').append(board.getAttack(slot))
+                        .append('/').append(board.getHealth(slot))
+                        .append(board.isFrozen(slot) ? "/frozen" : "")
+                        .append(board.hasAttacked(slot) ? "/attacked" : "")
+                        .append(board.isTank(slot) ? "/tank" : "")
+                        .append(board.isLinked(slot) ? "/linked" : "");
+            }
+            for (int column = board.getOccupied(row); column < Board.COLUMNS; column++) {
+                int slot = Board.slot(row, column);
+                dump.append(board.hasAttacked(slot) ? " -/attacked" : " -")
+                        .append(board.isLinked(slot) ? "/linked" : "");
+            }
+            dump.append('\n');
+        }
+        return dump.toString();
+    }
+
+    /**
+     * @param game a game
+     * @return the parts of the state of the game that are hashed, as text
+     */
+    private static String hashed(final Game game) {
+        StringBuilder dump = new StringBuilder();
+        dump.append(game.getTurns() % 2).append(' ').append(game.getRound());
+        for (Player player : List.of(game.getPlayerOne(), game.getPlayerTwo())) {
+            Card hero = player.getPlayerHero();
+            dump.append('|').append(player.getMana()).append(' ').append(player.isTurn())
+                    .append(' ').append(hero.getHealth()).append(' ').append(hero.isDead())
+                    .append(' ').append(hero.isHasAttacked())
+                    .append(' ').append(player.getDeck().getCursor()).append(':');
+            for (Card card : player.getHand()) {
+                dump.append(' ').append(card.getId());
+            }
+        }
+        Board board = game.getBoard();
+        for (int slot = 0; slot < Board.SLOTS; slot++) {
+            dump.append('|').append(board.getId(slot)).append(' ')
+                    .append(board.getAttack(slot)).append(' ').append(board.getHealth(slot))
+                    .append(' ').append(board.isFrozen(slot)).append(' ')
+                    .append(board.hasAttacked(slot)).append(' ')
+                    .append(board.isLinked(slot));
+        }
+        return dump.toString();
+    }
+
+    /**
+     * @param dump the dump of the game
+     * @param player a player
+     */
+    private static void dump(final StringBuilder dump, final Player player) {
+        Card hero = player.getPlayerHero();
+        dump.append("player ").append(player.getIdx())
+                .append(" mana ").append(player.getMana())
+                .append(" turn ").append(player.isTurn())
+                .append(" wins ").append(player.getWins())
+                .append(" hero ").append(hero.getHealth())
+                .append(hero.isDead() ? " dead" : "")
+                .append(hero.isHasAttacked() ? " attacked" : "")
+                .append("\nhand:");
+        for (Card card : player.getHand()) {
+            dump.append(' ').append(System.identityHashCode(card));
+        }
+        dump.append("\ndeck:");
+        for (Card card : player.getDeck().getRemaining()) {
+            dump.append(' ').append(System.identityHashCode(card));
+        }
+        dump.append('\n');
+    }
+}
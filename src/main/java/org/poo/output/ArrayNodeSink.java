@@ -0,0 +1,32 @@
+package org.poo.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import lombok.Getter;
+
+/**
+ * Keeps every result in memory, in a single array.
+ */
+@Getter
+public final class ArrayNodeSink implements OutputSink {
+    private final ArrayNode results;
+
+    public ArrayNodeSink() {
+        this.results = JsonNodeFactory.instance.arrayNode();
+    }
+
+    @Override
+    public void add(final JsonNode result) {
+        results.add(result);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,30 @@
+package org.poo.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Drops every result, for games played only for their outcome.
+ */
+public final class DiscardingSink implements OutputSink {
+    public static final DiscardingSink INSTANCE = new DiscardingSink();
+
+    private DiscardingSink() {
+    }
+
+    @Override
+    public void add(final JsonNode result) {
+    }
+
+    @Override
+    public boolean keepsResults() {
+        return false;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
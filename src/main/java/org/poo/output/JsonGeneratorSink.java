@@ -0,0 +1,59 @@
+package org.poo.output;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes every result to the output file as soon as it is produced. In pretty mode the
+ * bytes are the same as those of the whole array written with the default pretty printer.
+ */
+public final class JsonGeneratorSink implements OutputSink {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final JsonGenerator generator;
+
+    /**
+     * Opens the output file and starts the array of results
+     * @param file the output file
+     * @param pretty false for a compact output
+     * @throws IOException in case of exceptions to writing
+     */
+    public JsonGeneratorSink(final File file, final boolean pretty) throws IOException {
+        generator = MAPPER.getFactory().createGenerator(file, JsonEncoding.UTF8);
+        if (pretty) {
+            generator.setPrettyPrinter(new DefaultPrettyPrinter());
+        }
+        generator.writeStartArray();
+    }
+
+    @Override
+    public void add(final JsonNode result) {
+        try {
+            MAPPER.writeTree(generator, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    /**
+     * Ends the array of results and closes the output file
+     * @throws IOException in case of exceptions to writing
+     */
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
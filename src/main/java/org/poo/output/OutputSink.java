@@ -0,0 +1,30 @@
+package org.poo.output;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the results of the commands, in the order in which they are produced.
+ */
+public interface OutputSink extends Closeable {
+    /**
+     * @param result the result of a command
+     */
+    void add(JsonNode result);
+
+    /**
+     * @return false if the results are dropped, in which case the commands do not build
+     *         them at all
+     */
+    default boolean keepsResults() {
+        return true;
+    }
+
+    /**
+     * Pushes the results received so far to the underlying output
+     * @throws IOException in case of exceptions to writing
+     */
+    void flush() throws IOException;
+}
@@ -1,6 +1,6 @@
 package org.poo.players;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -8,43 +8,52 @@ import lombok.Setter;
 @Getter
 @Setter
 public class Card {
-    private int mana;
+    private final int id;
+    private final CardDefinition definition;
     private int attackDamage;
     private int health;
-    private String description;
-    private ArrayList<String> colors;
-    private String name;
     private boolean isDead = false;
-    private boolean isFrozen = false;
     private boolean hasAttacked = false;
     public static final int HERO_HEALTH = 30;
     public static final int ZERO = 0;
 
-    public Card(final int mana, final int attackDamage, final int health,
-                final String description, final ArrayList<String> colors, final String name) {
-        this.mana = mana;
-        this.attackDamage = attackDamage;
-        this.health = health;
-        this.description = description;
-        this.colors = colors;
-        this.name = name;
+    public Card(final CardRegistry cards, final int id) {
+        this.id = id;
+        this.definition = cards.get(id);
+        this.attackDamage = definition.getAttackDamage();
+        this.health = definition.getHealth();
     }
 
-    public Card() {
-        this.mana = ZERO;
-        this.attackDamage = ZERO;
-        this.health = ZERO;
-        this.description = null;
-        this.colors = null;
-        this.name = null;
+    public Card(final CardRegistry cards, final int mana, final String description,
+                final List<String> colors, final String name) {
+        this(cards, cards.intern(mana, ZERO, HERO_HEALTH, description, colors, name));
     }
 
-    public Card(final int mana, final String description,
-                final ArrayList<String> colors, final String name) {
-        this.mana = mana;
-        this.health = HERO_HEALTH;
-        this.description = description;
-        this.colors = colors;
-        this.name = name;
+    /**
+     * @return the mana of the card
+     */
+    public int getMana() {
+        return getDefinition().getMana();
+    }
+
+    /**
+     * @return the description of the card
+     */
+    public String getDescription() {
+        return getDefinition().getDescription();
+    }
+
+    /**
+     * @return the colors of the card
+     */
+    public List<String> getColors() {
+        return getDefinition().getColors();
+    }
+
+    /**
+     * @return the name of the card
+     */
+    public String getName() {
+        return getDefinition().getName();
     }
 }
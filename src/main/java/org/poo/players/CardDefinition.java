@@ -0,0 +1,55 @@
+package org.poo.players;
+
+import java.util.List;
+import java.util.Objects;
+
+import lombok.Getter;
+
+/**
+ * The immutable part of a card, shared by every copy of that card in every deck and game
+ * of an input. Each distinct definition is interned once by the CardRegistry of the input.
+ */
+@Getter
+public final class CardDefinition {
+    private final int mana;
+    private final int attackDamage;
+    private final int health;
+    private final String description;
+    private final List<String> colors;
+    private final String name;
+    private final CardType type;
+
+    CardDefinition(final int mana, final int attackDamage, final int health,
+                   final String description, final List<String> colors,
+                   final String name) {
+        this.mana = mana;
+        this.attackDamage = attackDamage;
+        this.health = health;
+        this.description = description;
+        this.colors = colors;
+        this.name = name;
+        this.type = CardType.fromName(name);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CardDefinition)) {
+            return false;
+        }
+        CardDefinition that = (CardDefinition) o;
+        return mana == that.mana
+                && attackDamage == that.attackDamage
+                && health == that.health
+                && Objects.equals(description, that.description)
+                && colors == that.colors
+                && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mana, attackDamage, health, description, colors, name);
+    }
+}
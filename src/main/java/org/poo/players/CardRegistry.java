@@ -0,0 +1,81 @@
+package org.poo.players;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The definitions of the cards of one input, each interned once and referenced by a small
+ * integer id. A registry belongs to whoever reads the input, a run or a session, and goes
+ * away with it, so it only ever holds the cards of that input and its ids only mean
+ * something to the games started from it. The games of an input can be run on several
+ * threads, so the registry can be read and added to concurrently.
+ */
+public final class CardRegistry {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<CardDefinition, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<List<String>, List<String>> colors = new ConcurrentHashMap<>();
+    private volatile CardDefinition[] definitions = new CardDefinition[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Returns the id of a definition, registering it the first time it is seen
+     * @param mana the mana of the card
+     * @param attackDamage the attack damage of the card
+     * @param health the health of the card
+     * @param description the description of the card
+     * @param cardColors the colors of the card
+     * @param name the name of the card
+     * @return the id of the definition
+     */
+    public int intern(final int mana, final int attackDamage, final int health,
+                      final String description, final List<String> cardColors,
+                      final String name) {
+        CardDefinition definition = new CardDefinition(mana, attackDamage, health,
+                description, internColors(cardColors), name);
+        Integer id = ids.get(definition);
+        if (id != null) {
+            return id;
+        }
+
+        synchronized (ids) {
+            id = ids.get(definition);
+            if (id == null) {
+                CardDefinition[] array = definitions;
+                if (size == array.length) {
+                    array = Arrays.copyOf(array, size * 2);
+                }
+                array[size] = definition;
+                definitions = array;
+                id = size++;
+                ids.put(definition, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * @param id the id of the definition
+     * @return the definition registered under that id
+     */
+    public CardDefinition get(final int id) {
+        return definitions[id];
+    }
+
+    /**
+     * @param cardColors a list of colors
+     * @return the shared, unmodifiable copy of that list
+     */
+    private List<String> internColors(final List<String> cardColors) {
+        if (cardColors == null) {
+            return null;
+        }
+        List<String> interned = colors.get(cardColors);
+        if (interned == null) {
+            interned = colors.computeIfAbsent(List.copyOf(cardColors), key -> key);
+        }
+        return interned;
+    }
+}
@@ -0,0 +1,108 @@
+package org.poo.players;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of cards known by the engine, with the rules that depend only on the kind
+ */
+public enum CardType {
+    SENTINEL("Sentinel", Placement.BACK, false, Target.ENEMY),
+    BERSERKER("Berserker", Placement.BACK, false, Target.ENEMY),
+    GOLIATH("Goliath", Placement.FRONT, true, Target.ENEMY),
+    WARDEN("Warden", Placement.FRONT, true, Target.ENEMY),
+    THE_RIPPER("The Ripper", Placement.FRONT, false, Target.ENEMY),
+    MIRAJ("Miraj", Placement.FRONT, false, Target.ENEMY),
+    THE_CURSED_ONE("The Cursed One", Placement.BACK, false, Target.ENEMY),
+    DISCIPLE("Disciple", Placement.BACK, false, Target.ALLY),
+    LORD_ROYCE("Lord Royce", Placement.NONE, false, Target.ENEMY),
+    EMPRESS_THORINA("Empress Thorina", Placement.NONE, false, Target.ENEMY),
+    GENERAL_KOCIORAW("General Kocioraw", Placement.NONE, false, Target.ALLY),
+    KING_MUDFACE("King Mudface", Placement.NONE, false, Target.ALLY),
+    UNKNOWN(null, Placement.NONE, false, Target.NONE);
+
+    /**
+     * The row of its owner a card is placed on
+     */
+    public enum Placement {
+        FRONT,
+        BACK,
+        NONE
+    }
+
+    /**
+     * The side of the table a card's ability is used on
+     */
+    public enum Target {
+        ENEMY,
+        ALLY,
+        NONE
+    }
+
+    private static final CardType[] TYPES = values();
+    private static final Map<String, CardType> BY_NAME = new HashMap<>();
+
+    static {
+        for (CardType type : TYPES) {
+            if (type.cardName != null) {
+                BY_NAME.put(type.cardName, type);
+            }
+        }
+    }
+
+    private final String cardName;
+    private final Placement placement;
+    private final boolean tank;
+    private final Target target;
+
+    CardType(final String cardName, final Placement placement, final boolean tank,
+             final Target target) {
+        this.cardName = cardName;
+        this.placement = placement;
+        this.tank = tank;
+        this.target = target;
+    }
+
+    /**
+     * @return the name of the cards of this type
+     */
+    public String getCardName() {
+        return cardName;
+    }
+
+    /**
+     * @return the row the card is placed on
+     */
+    public Placement getPlacement() {
+        return placement;
+    }
+
+    /**
+     * @return true if the card has to be attacked before the other enemy cards
+     */
+    public boolean isTank() {
+        return tank;
+    }
+
+    /**
+     * @return the side of the table the ability is used on
+     */
+    public Target getTarget() {
+        return target;
+    }
+
+    /**
+     * @param cardName the name of a card
+     * @return the type of the card, UNKNOWN if the name is not known
+     */
+    public static CardType fromName(final String cardName) {
+        return BY_NAME.getOrDefault(cardName, UNKNOWN);
+    }
+
+    /**
+     * @return the number of card types
+     */
+    public static int count() {
+        return TYPES.length;
+    }
+}
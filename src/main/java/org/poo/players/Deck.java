@@ -1,23 +1,75 @@
 package org.poo.players;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 
 import lombok.Getter;
-import lombok.Setter;
 
+/**
+ * A read-only array of cards and a cursor pointing at the next card to be drawn.
+ * Drawing only moves the cursor, and undoing a draw moves it back.
+ */
 @Getter
-@Setter
-public class Deck {
+public final class Deck {
 
-    private int nrCardsInDeck;
-    private int deckIdx;
-    private ArrayList<Card> cards;
-    private int size;
+    private final int nrCardsInDeck;
+    private final int deckIdx;
+    private final Card[] cards;
+    private int cursor;
 
-    public Deck(final int nrCardsInDeck, final int deckIdx, final ArrayList<Card> cards) {
+    public Deck(final int nrCardsInDeck, final int deckIdx, final List<Card> cards) {
         this.nrCardsInDeck = nrCardsInDeck;
         this.deckIdx = deckIdx;
-        this.cards = cards;
-        this.size = nrCardsInDeck;
+        this.cards = cards.toArray(new Card[0]);
+        this.cursor = 0;
+    }
+
+    /**
+     * Shuffles the cards that have not been drawn yet
+     * @param random the source of randomness
+     */
+    public void shuffle(final Random random) {
+        Collections.shuffle(getRemaining(), random);
+    }
+
+    /**
+     * @return the number of cards left in the deck
+     */
+    public int size() {
+        return cards.length - cursor;
+    }
+
+    /**
+     * @return the next card of the deck, or null if the deck is empty
+     */
+    public Card draw() {
+        if (cursor == cards.length) {
+            return null;
+        }
+        return cards[cursor++];
+    }
+
+    /**
+     * Puts the last card drawn back on top of the deck
+     */
+    public void putBack() {
+        cursor--;
+    }
+
+    /**
+     * Moves the cursor, as if that many cards had been drawn from the full deck
+     * @param drawn the number of cards drawn
+     */
+    public void setCursor(final int drawn) {
+        cursor = drawn;
+    }
+
+    /**
+     * @return a view of the cards left in the deck, in drawing order
+     */
+    public List<Card> getRemaining() {
+        return Arrays.asList(cards).subList(cursor, cards.length);
     }
 }
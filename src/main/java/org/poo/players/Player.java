@@ -16,8 +16,7 @@ public class Player {
     private int frontRow;
     private int backRow;
     private Deck deck;
-    private ArrayList<Card> hand = new ArrayList<>();
-    private int handSize;
+    private ArrayList<Card> hand;
     private HeroCard playerHero;
     private int wins;
     public static final int ZERO = 0;
@@ -28,7 +27,7 @@ public class Player {
         this.idx = idx;
         this.mana = mana;
         this.deck = deck;
-        this.handSize = ZERO;
+        this.hand = new ArrayList<>(deck.size());
         this.playerHero = playerHero;
         this.frontRow = frontRow;
         this.backRow = backRow;
@@ -0,0 +1,67 @@
+package org.poo.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Streams over a socket channel that read and write it directly. The streams made by
+ * Channels share the blocking lock of the channel, so a read waiting for the next request
+ * would hold back every reply written from another thread.
+ */
+final class ChannelStreams {
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * for coding style
+     */
+    private ChannelStreams() {
+    }
+
+    /**
+     * @param channel a blocking socket channel
+     * @return a stream reading the channel
+     */
+    static InputStream in(final SocketChannel channel) {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) == -1 ? -1 : one[0] & BYTE_MASK;
+            }
+
+            @Override
+            public int read(final byte[] bytes, final int offset, final int length)
+                    throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                return channel.read(ByteBuffer.wrap(bytes, offset, length));
+            }
+        };
+    }
+
+    /**
+     * @param channel a blocking socket channel
+     * @return a stream writing the channel
+     */
+    static OutputStream out(final SocketChannel channel) {
+        return new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(final byte[] bytes, final int offset, final int length)
+                    throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        };
+    }
+}
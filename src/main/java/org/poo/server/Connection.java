@@ -0,0 +1,141 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A client of the server. Its thread reads the requests and posts each one to the mailbox
+ * of its session, while the sessions write their replies from the pool. Once MAX_IN_FLIGHT
+ * requests wait for their replies, the thread stops reading until some are answered, so a
+ * client sending faster than its sessions play is held back instead of filling the heap.
+ */
+final class Connection implements Runnable {
+    private static final int MAX_IN_FLIGHT = 4096;
+
+    private final SocketChannel channel;
+    private final Executor executor;
+    private final PrintWriter out;
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+
+    Connection(final SocketChannel channel, final Executor executor) {
+        this.channel = channel;
+        this.executor = executor;
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                ChannelStreams.out(channel), StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void run() {
+        try (channel;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     ChannelStreams.in(channel), StandardCharsets.UTF_8))) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                if (!line.isBlank()) {
+                    route(line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("connection failed: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (out) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Posts a request to its session, opening the session if it is new
+     * @param line the request
+     * @throws InterruptedException if interrupted while waiting for a request to be answered
+     */
+    private void route(final String line) throws InterruptedException {
+        JsonNode request;
+        try {
+            request = GameServer.MAPPER.readTree(line);
+        } catch (JsonProcessingException e) {
+            reply(error(null, "Malformed request: " + e.getOriginalMessage()));
+            return;
+        }
+        JsonNode id = request.get(GameServer.SESSION);
+        if (id == null || !id.isValueNode()) {
+            reply(error(null, "The request names no session."));
+            return;
+        }
+        String key = id.asText();
+        Session session = sessions.get(key);
+        if (session == null) {
+            session = new Session(id, this, executor);
+            sessions.put(key, session);
+        }
+        if (request.has(GameServer.CLOSE)) {
+            sessions.remove(key);
+        }
+        inFlight.acquire();
+        session.post(request);
+    }
+
+    /**
+     * @param id the session, null if the request names none
+     * @param message what went wrong
+     * @return the reply to a failed request
+     */
+    static ObjectNode error(final JsonNode id, final String message) {
+        ObjectNode reply = GameServer.MAPPER.createObjectNode();
+        reply.set(GameServer.SESSION, id);
+        reply.put(GameServer.ERROR, message);
+        return reply;
+    }
+
+    /**
+     * Writes a reply and sends everything written so far
+     * @param reply the reply
+     */
+    private void reply(final ObjectNode reply) {
+        send(reply);
+        flush();
+    }
+
+    /**
+     * Writes a reply, to be sent on the next flush
+     * @param reply the reply
+     */
+    void send(final ObjectNode reply) {
+        String line = reply.toString();
+        synchronized (out) {
+            out.println(line);
+        }
+    }
+
+    /**
+     * Lets the next request in, once a posted request has been answered
+     */
+    void answered() {
+        inFlight.release();
+    }
+
+    /**
+     * Sends every reply written so far
+     */
+    void flush() {
+        synchronized (out) {
+            out.flush();
+        }
+    }
+}
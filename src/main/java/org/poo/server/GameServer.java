@@ -0,0 +1,68 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.main.Daemon;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hosts live matches. Clients connect over a Unix domain socket (--unix path) or a localhost
+ * port (--port n, DEFAULT_PORT if nothing is given) and send one JSON request per line,
+ * each naming the session it is meant for:
+ *
+ *   {"session": id, "start": {"decks": {playerOneDecks, playerTwoDecks}, "startGame": ...}}
+ *   {"session": id, "action": an action, as in the input files}
+ *   {"session": id, "close": true}
+ *
+ * Every request is answered with {"session": id, "results": [...]}, holding the results
+ * of the request as they appear in the output files, or with {"session": id, "error": ...}.
+ * A session can play several games in a row: a start may leave out the decks of the game
+ * before, and the games won are counted the way they are between the games of a file.
+ *
+ * Each session owns its game and handles its requests one at a time, from a mailbox drained
+ * on a shared work stealing pool, so games need no locks and a few connections can carry
+ * thousands of sessions.
+ */
+public final class GameServer {
+    public static final int DEFAULT_PORT = 7655;
+    public static final String SESSION = "session";
+    public static final String START = "start";
+    public static final String DECKS = "decks";
+    public static final String START_GAME = "startGame";
+    public static final String ACTION = "action";
+    public static final String CLOSE = "close";
+    public static final String RESULTS = "results";
+    public static final String ERROR = "error";
+    static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int THREADS = Integer.getInteger("gwentstone.threads",
+            Runtime.getRuntime().availableProcessors());
+
+    /**
+     * for coding style
+     */
+    private GameServer() {
+    }
+
+    /**
+     * @param args --unix and a socket path, or --port and a port
+     * @throws IOException in case of exceptions to listening
+     */
+    public static void main(final String[] args) throws IOException {
+        SocketAddress address = Daemon.address(args, DEFAULT_PORT);
+        ExecutorService sessions = Executors.newWorkStealingPool(THREADS);
+        ExecutorService readers = Executors.newCachedThreadPool();
+        try (ServerSocketChannel server = Daemon.listen(address)) {
+            System.out.println("listening on " + address);
+            for (;;) {
+                readers.execute(new Connection(server.accept(), sessions));
+            }
+        } finally {
+            readers.shutdownNow();
+            sessions.shutdownNow();
+        }
+    }
+}
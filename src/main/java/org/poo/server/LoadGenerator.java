@@ -0,0 +1,217 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.main.Daemon;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays the games of an input file as many concurrent sessions of a GameServer. Session s
+ * plays game s modulo the number of games. All the sessions are started first, and no
+ * action is sent before every connection had all its starts answered, so every match is
+ * open at once. Their actions are then sent in rounds, one action of every session per
+ * round, and the sessions are only closed at the end. Prints the requests answered per
+ * second.
+ */
+public final class LoadGenerator {
+    private static final int DEFAULT_SESSIONS = 10_000;
+    private static final int DEFAULT_CONNECTIONS = 8;
+    private static final int SESSIONS_ARG = 1;
+    private static final int CONNECTIONS_ARG = 2;
+    private static final int ADDRESS_ARG = 3;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final SocketAddress address;
+    private final List<String> starts = new ArrayList<>();
+    private final List<List<String>> actions = new ArrayList<>();
+    private CyclicBarrier open;
+
+    private LoadGenerator(final SocketAddress address, final JsonNode file) {
+        this.address = address;
+        ObjectNode decks = GameServer.MAPPER.createObjectNode();
+        decks.set("playerOneDecks", file.get("playerOneDecks"));
+        decks.set("playerTwoDecks", file.get("playerTwoDecks"));
+        for (JsonNode game : file.get("games")) {
+            ObjectNode start = GameServer.MAPPER.createObjectNode();
+            start.set(GameServer.DECKS, decks);
+            start.set(GameServer.START_GAME, game.get(GameServer.START_GAME));
+            starts.add(start.toString());
+            List<String> gameActions = new ArrayList<>();
+            for (JsonNode action : game.get("actions")) {
+                gameActions.add(action.toString());
+            }
+            actions.add(gameActions);
+        }
+    }
+
+    /**
+     * @param args the input file, then optionally the number of sessions, the number of
+     *             connections and the address of the server, as given to it
+     * @throws IOException in case of exceptions to reading / connecting
+     */
+    public static void main(final String[] args) throws IOException {
+        int sessions = args.length > SESSIONS_ARG
+                ? Integer.parseInt(args[SESSIONS_ARG]) : DEFAULT_SESSIONS;
+        int connections = args.length > CONNECTIONS_ARG
+                ? Integer.parseInt(args[CONNECTIONS_ARG]) : DEFAULT_CONNECTIONS;
+        SocketAddress address = Daemon.address(Arrays.copyOfRange(args,
+                Math.min(ADDRESS_ARG, args.length), args.length), GameServer.DEFAULT_PORT);
+        LoadGenerator generator = new LoadGenerator(address,
+                GameServer.MAPPER.readTree(new File(args[0])));
+
+        generator.open = new CyclicBarrier(connections);
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        long start = System.nanoTime();
+        long requests = 0;
+        long errors = 0;
+        try {
+            List<Future<long[]>> drivers = new ArrayList<>();
+            for (int c = 0; c < connections; c++) {
+                int first = c;
+                drivers.add(executor.submit(() -> generator.drive(first, connections, sessions)));
+            }
+            for (Future<long[]> driver : drivers) {
+                long[] counts = driver.get();
+                requests += counts[0];
+                errors += counts[1];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while driving the sessions.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("A connection failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        System.out.printf("%d sessions open at once over %d connections: %d requests, "
+                + "%d errors, %.3f s, %.0f requests/s%n", sessions, connections, requests, errors,
+                seconds, requests / seconds);
+    }
+
+    /**
+     * Plays the sessions first, first + step, ... over a connection of their own. Their
+     * actions are only sent once the sessions of every connection are started
+     * @param first the first session
+     * @param step the number of connections
+     * @param sessions the number of sessions
+     * @return the number of requests answered and the number of errors among them
+     * @throws IOException in case of exceptions to connecting
+     */
+    private long[] drive(final int first, final int step, final int sessions)
+            throws IOException {
+        try (SocketChannel channel = SocketChannel.open(address);
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     ChannelStreams.in(channel), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                     ChannelStreams.out(channel), StandardCharsets.UTF_8)))) {
+            long expected = 0;
+            int rounds = 0;
+            int started = 0;
+            for (int s = first; s < sessions; s += step) {
+                List<String> gameActions = actions.get(s % actions.size());
+                expected += gameActions.size() + 2;
+                rounds = Math.max(rounds, gameActions.size());
+                started++;
+            }
+            long[] counts = {expected, 0};
+            CountDownLatch startsAnswered = new CountDownLatch(started);
+            Thread reader = new Thread(() -> {
+                try {
+                    counts[1] = read(in, counts[0], startsAnswered);
+                } finally {
+                    while (startsAnswered.getCount() > 0) {
+                        startsAnswered.countDown();
+                    }
+                }
+            });
+            reader.start();
+
+            for (int s = first; s < sessions; s += step) {
+                out.println(request(s, GameServer.START, starts.get(s % starts.size())));
+            }
+            out.flush();
+            startsAnswered.await();
+            open.await();
+            for (int round = 0; round < rounds; round++) {
+                for (int s = first; s < sessions; s += step) {
+                    List<String> gameActions = actions.get(s % actions.size());
+                    if (round < gameActions.size()) {
+                        out.println(request(s, GameServer.ACTION, gameActions.get(round)));
+                    }
+                }
+            }
+            for (int s = first; s < sessions; s += step) {
+                out.println(request(s, GameServer.CLOSE, "true"));
+            }
+            out.flush();
+            reader.join();
+            return counts;
+        } catch (IOException | RuntimeException e) {
+            open.reset();
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading the replies.", e);
+        } catch (BrokenBarrierException e) {
+            throw new IOException("Another connection failed to start its sessions.", e);
+        }
+    }
+
+    /**
+     * @param session the session
+     * @param kind the kind of the request
+     * @param body the JSON body of the request
+     * @return the request, as a line
+     */
+    private static String request(final int session, final String kind, final String body) {
+        return "{\"" + GameServer.SESSION + "\":" + session + ",\"" + kind + "\":" + body + "}";
+    }
+
+    /**
+     * @param in the replies
+     * @param expected the number of replies expected
+     * @param startsAnswered counted down by each reply, the first ones being those to the
+     *                       starts
+     * @return the number of errors among the replies
+     */
+    private static long read(final BufferedReader in, final long expected,
+                             final CountDownLatch startsAnswered) {
+        long errors = 0;
+        try {
+            for (long i = 0; i < expected; i++) {
+                String line = in.readLine();
+                if (line == null) {
+                    return errors + expected - i;
+                }
+                startsAnswered.countDown();
+                if (GameServer.MAPPER.readTree(line).has(GameServer.ERROR)) {
+                    errors++;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("reading the replies failed: " + e);
+        }
+        return errors;
+    }
+}
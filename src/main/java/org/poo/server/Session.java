@@ -0,0 +1,150 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.fileio.ActionsInput;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.fileio.StartGameInput;
+import org.poo.game.Game;
+import org.poo.game.Program;
+import org.poo.output.ArrayNodeSink;
+import org.poo.players.CardRegistry;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A live match. Requests are queued in its mailbox and handled by at most one thread at a
+ * time: the thread that schedules the session is the only one draining the mailbox until
+ * it gives the session up, so the game is never touched concurrently.
+ */
+final class Session implements Runnable {
+    private static final int MAX_BATCH = 64;
+
+    private final JsonNode id;
+    private final Connection connection;
+    private final Executor executor;
+    private final Queue<JsonNode> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private Input input;
+    private CardRegistry cards;
+    private Game game;
+    private int winsOne;
+    private int winsTwo;
+
+    Session(final JsonNode id, final Connection connection, final Executor executor) {
+        this.id = id;
+        this.connection = connection;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a request, scheduling the session if it is idle
+     * @param request the request
+     */
+    void post(final JsonNode request) {
+        mailbox.add(request);
+        schedule();
+    }
+
+    /**
+     * Handles a batch of requests, so busy sessions take turns on the pool
+     */
+    @Override
+    public void run() {
+        for (int i = 0; i < MAX_BATCH; i++) {
+            JsonNode request = mailbox.poll();
+            if (request == null) {
+                break;
+            }
+            connection.send(handle(request));
+            connection.answered();
+        }
+        connection.flush();
+        scheduled.set(false);
+        schedule();
+    }
+
+    /**
+     * Hands the session to the pool, unless it has nothing to do or is already scheduled
+     */
+    private void schedule() {
+        if (!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+            executor.execute(this);
+        }
+    }
+
+    /**
+     * @param request the request
+     * @return the reply to the request
+     */
+    private ObjectNode handle(final JsonNode request) {
+        ArrayNodeSink results = new ArrayNodeSink();
+        try {
+            if (request.has(GameServer.START)) {
+                start(request.get(GameServer.START), results);
+            } else if (request.has(GameServer.ACTION)) {
+                action(request.get(GameServer.ACTION), results);
+            } else if (request.has(GameServer.CLOSE)) {
+                game = null;
+            } else {
+                throw new IllegalArgumentException("Expected start, action or close.");
+            }
+        } catch (IOException | RuntimeException e) {
+            return Connection.error(id, String.valueOf(e.getMessage()));
+        }
+        ObjectNode reply = GameServer.MAPPER.createObjectNode();
+        reply.set(GameServer.SESSION, id);
+        reply.set(GameServer.RESULTS, results.getResults());
+        return reply;
+    }
+
+    /**
+     * Starts a new game, after counting the winner of the game before
+     * @param start the decks, unless they are the ones of the game before, and startGame
+     * @param results the sink receiving the results
+     * @throws IOException if the decks or startGame are malformed
+     */
+    private void start(final JsonNode start, final ArrayNodeSink results) throws IOException {
+        JsonNode decks = start.get(GameServer.DECKS);
+        if (decks != null) {
+            input = GameServer.MAPPER.treeToValue(decks, Input.class);
+            cards = new CardRegistry();
+        }
+        JsonNode startGame = start.get(GameServer.START_GAME);
+        if (input == null || startGame == null) {
+            throw new IllegalArgumentException("A start needs decks and startGame.");
+        }
+        GameInput gameInput = new GameInput();
+        gameInput.setStartGame(GameServer.MAPPER.treeToValue(startGame, StartGameInput.class));
+        if (game != null) {
+            if (game.getPlayerOne().getWins() != 0) {
+                winsOne++;
+            } else if (game.getPlayerTwo().getWins() != 0) {
+                winsTwo++;
+            }
+        }
+        game = new Game(cards, input, gameInput, null, results);
+        game.startGame();
+        game.setPlayerWins(winsOne, winsTwo);
+    }
+
+    /**
+     * @param action the action, as in the input files
+     * @param results the sink receiving the results
+     * @throws IOException if the action is malformed
+     */
+    private void action(final JsonNode action, final ArrayNodeSink results) throws IOException {
+        if (game == null) {
+            throw new IllegalArgumentException("No game has been started.");
+        }
+        ActionsInput actionsInput = GameServer.MAPPER.treeToValue(action, ActionsInput.class);
+        game.setOutput(results);
+        game.run(Program.compile(List.of(actionsInput)));
+    }
+}
@@ -0,0 +1,77 @@
+package org.poo.sim;
+
+import org.poo.game.Board;
+import org.poo.game.Command;
+import org.poo.game.Game;
+import org.poo.game.MoveGenerator;
+import org.poo.game.Program;
+import org.poo.players.Player;
+
+import java.util.Random;
+
+/**
+ * Takes the legal action that looks best right now: hitting the enemy hero, then killing
+ * cards, then placing the most expensive card, then the other attacks and abilities, and
+ * ends the turn when nothing is left. Ties are broken at random.
+ */
+public final class GreedyPolicy implements Policy {
+    private static final int HERO_ATTACK = 1000;
+    private static final int KILL = 800;
+    private static final int PLACE = 600;
+    private static final int ATTACK = 400;
+    private static final int ABILITY = 300;
+    private static final int HERO_ABILITY = 200;
+
+    private final Program candidates = new Program(0);
+
+    @Override
+    public void move(final Game game, final Player player, final Random random,
+                     final Program program) {
+        candidates.clear();
+        MoveGenerator.generate(game, candidates);
+        int best = 0;
+        int bestScore = Integer.MIN_VALUE;
+        int ties = 0;
+        for (int pc = 0; pc < candidates.size(); pc++) {
+            int score = score(game, player, pc);
+            if (score > bestScore) {
+                best = pc;
+                bestScore = score;
+                ties = 1;
+            } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                best = pc;
+            }
+        }
+        program.add(candidates, best);
+    }
+
+    /**
+     * @param game the game
+     * @param player the player on turn
+     * @param pc the index of a candidate
+     * @return how good the candidate looks, ending the turn scoring 0
+     */
+    private int score(final Game game, final Player player, final int pc) {
+        Board board = game.getBoard();
+        Command command = Command.fromOpcode(candidates.getOpcode(pc));
+        int attacker = candidates.getAttacker(pc);
+        int attacked = candidates.getAttacked(pc);
+        switch (command) {
+            case USE_ATTACK_HERO:
+                return board.getAttack(attacker) == 0 ? 1 : HERO_ATTACK + board.getAttack(attacker);
+            case CARD_USES_ATTACK:
+                if (board.getHealth(attacked) <= board.getAttack(attacker)) {
+                    return KILL + board.getMana(attacked);
+                }
+                return ATTACK + board.getAttack(attacker);
+            case PLACE_CARD:
+                return PLACE + player.getHand().get(candidates.getHandIdx(pc)).getMana();
+            case CARD_USES_ABILITY:
+                return ABILITY + board.getMana(attacked);
+            case USE_HERO_ABILITY:
+                return HERO_ABILITY + board.getOccupied(candidates.getAffectedRow(pc));
+            default:
+                return 0;
+        }
+    }
+}
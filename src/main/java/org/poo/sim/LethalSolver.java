@@ -0,0 +1,457 @@
+package org.poo.sim;
+
+import org.poo.game.Board;
+import org.poo.game.Command;
+import org.poo.game.Game;
+import org.poo.game.MoveGenerator;
+import org.poo.game.Program;
+import org.poo.game.TranspositionTable;
+import org.poo.output.DiscardingSink;
+import org.poo.players.Card;
+import org.poo.players.CardType;
+import org.poo.players.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides if the player on turn can kill the enemy hero before ending the turn, and finds
+ * the actions doing it. The search runs the real rules on a copy of the game, undoing
+ * every action through its journal, and only tries the actions that can matter: attacks on
+ * the enemy hero, placing cards, attacks and abilities aimed at enemy tanks, and the hero
+ * abilities of General Kocioraw and Empress Thorina. Nothing else can add damage or clear
+ * the way to the enemy hero.
+ *
+ * Before expanding a state, the search bounds the damage still possible. Every minion
+ * that can act, on the board or placeable from the hand, strikes once, and each tank
+ * Empress Thorina cannot destroy uses up at least one of them and, unless an ability
+ * helps, attack worth its health, a tank copied into linked columns being worth its health
+ * only once. If the enemy hero survives that bound, the state is cut
+ * off. States proven not to be lethal are remembered in a transposition table under their
+ * hash, so the orders reaching the same state are searched once, and the orders that
+ * always lead to the same states are not tried at all.
+ */
+public final class LethalSolver {
+    public static final int DEFAULT_TABLE_BITS = 16;
+    private static final int USE_ATTACK_HERO = Command.USE_ATTACK_HERO.getOpcode();
+    private static final int PLACE_CARD = Command.PLACE_CARD.getOpcode();
+    private static final int CARD_USES_ATTACK = Command.CARD_USES_ATTACK.getOpcode();
+    private static final int CARD_USES_ABILITY = Command.CARD_USES_ABILITY.getOpcode();
+    private static final int USE_HERO_ABILITY = Command.USE_HERO_ABILITY.getOpcode();
+    private static final int ONE = 1;
+    private static final int TWO = 2;
+    private static final int CLOSED = -1;
+    private static final long PHASE_MIX = 0x9E3779B97F4A7C15L;
+    private static final long FOCUS_MIX = 0xC2B2AE3D27D4EB4FL;
+
+    private final TranspositionTable refuted;
+    private final List<Program> moves = new ArrayList<>();
+    private int[] line = new int[Board.SLOTS];
+    private int[] attacks = new int[Board.SLOTS];
+    private int[] abilities = new int[Board.SLOTS];
+    private final int[] healths = new int[Board.COLUMNS];
+    private int actors;
+    private int users;
+    private Game game;
+    private int generation;
+    private int winsOne;
+    private int winsTwo;
+    private long nodes;
+
+    /**
+     * @param tableBits the base two logarithm of the number of remembered states
+     */
+    public LethalSolver(final int tableBits) {
+        this.refuted = new TranspositionTable(tableBits,
+                TranspositionTable.ReplacementPolicy.ALWAYS);
+    }
+
+    public LethalSolver() {
+        this(DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * @return the number of states searched so far
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Looks for actions of the player on turn killing the enemy hero this turn
+     * @param root the game, which is left untouched
+     * @param out the program the actions are appended to, if there are any
+     * @return true if the player on turn can kill the enemy hero this turn
+     */
+    public boolean solve(final Game root, final Program out) {
+        if (!reachable(root, 0)) {
+            return false;
+        }
+        if (game == null || game.getCards() != root.getCards()
+                || game.getInput() != root.getInput()
+                || game.getGameInput() != root.getGameInput()) {
+            game = new Game(root.getCards(), root.getInput(), root.getGameInput(), null,
+                    DiscardingSink.INSTANCE);
+            game.startGame();
+            game.getJournal().setRecording(true);
+            game.startHashing();
+        }
+        game.copyFrom(root);
+        winsOne = root.getPlayerOne().getWins();
+        winsTwo = root.getPlayerTwo().getWins();
+        generation++;
+        int depth = search(0, 0, Board.EMPTY);
+        if (depth < 0) {
+            return false;
+        }
+        for (int i = 0; i < depth; i++) {
+            out.add(moves.get(i), line[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Placing a card does not depend on what the minions did before it and only adds to
+     * what they can do after it, and the order cards are placed in only changes where they
+     * stand in their rows. So the search places cards before anything else, by increasing
+     * index in hand, and tries each set of cards once, with General Kocioraw raising the
+     * attack of a row right after. Likewise, the actions aimed at different tanks of a row
+     * with a free column can be taken in any order, so unless Empress Thorina, who destroys
+     * the healthiest card of a row, can still act, the search destroys one tank before
+     * turning to the next. A tank copied into linked columns is never focused on, since a
+     * hit on one of its columns moves the others. On a full row, destroying a card copies
+     * the one of the last column instead of freeing it, so the number of cards does not
+     * tell whether the tank fell; the number of tanks starting their columns does.
+     * @param depth the number of actions taken since the root
+     * @param placeFrom the lowest index in hand of a card that can still be placed, CLOSED
+     *                  once another action was taken
+     * @param focus the slot of the tank hit but not destroyed yet, Board.EMPTY if none
+     * @return the number of actions of the lethal found from here on included, -1 if none
+     */
+    private int search(final int depth, final int placeFrom, final int focus) {
+        nodes++;
+        if (game.getPlayerOne().getWins() != winsOne
+                || game.getPlayerTwo().getWins() != winsTwo) {
+            return depth;
+        }
+        if (!reachable(game, placeFrom)) {
+            return -1;
+        }
+        long hash = game.getHasher().getHash() ^ (placeFrom + 1) * PHASE_MIX
+                ^ (focus + 1) * FOCUS_MIX;
+        long entry = refuted.probe(hash);
+        if (entry != TranspositionTable.MISSING
+                && TranspositionTable.value(entry) == generation) {
+            return -1;
+        }
+        if (depth == moves.size()) {
+            moves.add(new Program(0));
+        }
+        if (depth == line.length) {
+            line = Arrays.copyOf(line, depth * TWO);
+        }
+        Program candidates = moves.get(depth);
+        candidates.clear();
+        MoveGenerator.generate(game, candidates);
+        boolean closable = placeFrom == CLOSED || !placeable();
+        boolean focused = heroType() != CardType.EMPRESS_THORINA || !heroAbility(onTurn(game));
+        Board board = game.getBoard();
+        for (int pass = 0; pass < TWO; pass++) {
+            for (int pc = 0; pc < candidates.size(); pc++) {
+                int opcode = candidates.getOpcode(pc);
+                if ((opcode == USE_ATTACK_HERO) != (pass == 0) || !matters(candidates, pc)) {
+                    continue;
+                }
+                int next = CLOSED;
+                if (opcode == PLACE_CARD) {
+                    next = candidates.getHandIdx(pc);
+                    if (placeFrom == CLOSED || next < placeFrom || skipped(placeFrom, next)) {
+                        continue;
+                    }
+                } else if (!closable || (placeFrom == CLOSED && opcode == USE_HERO_ABILITY
+                        && heroType() == CardType.GENERAL_KOCIORAW)) {
+                    continue;
+                }
+                int target = Board.EMPTY;
+                if (opcode == CARD_USES_ATTACK || opcode == CARD_USES_ABILITY) {
+                    target = candidates.getAttacked(pc);
+                    if (focus != Board.EMPTY && target != focus) {
+                        continue;
+                    }
+                }
+                boolean keeps = focused && target != Board.EMPTY && alone(board, target);
+                int row = keeps ? Board.row(target) : 0;
+                int standing = keeps ? standing(board, row) : 0;
+                game.execute(candidates, pc);
+                if (!keeps || standing(board, row) < standing) {
+                    target = Board.EMPTY;
+                }
+                int found = search(depth + 1, next, target);
+                game.undo();
+                if (found >= 0) {
+                    line[depth] = pc;
+                    return found;
+                }
+            }
+        }
+        refuted.store(hash, TranspositionTable.pack(generation, 0, 0));
+        return -1;
+    }
+
+    /**
+     * Another card only adds a minion, so the search stops placing cards only once none
+     * fits anymore, keeping the mana of a hero ability it may use
+     * @return true if a card of the player on turn fits on its row with the mana left
+     */
+    private boolean placeable() {
+        Player player = onTurn(game);
+        Card hero = player.getPlayerHero();
+        CardType heroType = hero.getDefinition().getType();
+        int mana = player.getMana();
+        if (!hero.isHasAttacked() && (heroType == CardType.GENERAL_KOCIORAW
+                || heroType == CardType.EMPRESS_THORINA)) {
+            mana -= hero.getMana();
+        }
+        for (Card card : player.getHand()) {
+            CardType.Placement placement = card.getDefinition().getType().getPlacement();
+            if (placement != CardType.Placement.NONE && card.getMana() <= mana
+                    && game.getBoard().getOccupied(placement == CardType.Placement.FRONT
+                    ? player.getFrontRow() : player.getBackRow()) < Board.COLUMNS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Of equal cards, the search only places the first ones in hand
+     * @param placeFrom the lowest index in hand of a card that can still be placed
+     * @param handIdx the index in hand of the card to be placed
+     * @return true if an equal card was passed over before it
+     */
+    private boolean skipped(final int placeFrom, final int handIdx) {
+        List<Card> hand = onTurn(game).getHand();
+        Card card = hand.get(handIdx);
+        for (int i = placeFrom; i < handIdx; i++) {
+            Card other = hand.get(i);
+            if (other.getDefinition() == card.getDefinition()
+                    && other.getAttackDamage() == card.getAttackDamage()
+                    && other.getHealth() == card.getHealth()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param candidates the legal actions of the player on turn
+     * @param pc the index of an action
+     * @return false if the action can neither add damage nor remove an enemy tank
+     */
+    private boolean matters(final Program candidates, final int pc) {
+        int opcode = candidates.getOpcode(pc);
+        if (opcode == USE_ATTACK_HERO || opcode == PLACE_CARD) {
+            return true;
+        }
+        Board board = game.getBoard();
+        if (opcode == CARD_USES_ATTACK) {
+            return board.isTank(candidates.getAttacked(pc));
+        }
+        if (opcode == CARD_USES_ABILITY) {
+            return board.isTank(candidates.getAttacked(pc))
+                    && board.getType(candidates.getAttacker(pc)).getTarget()
+                    == CardType.Target.ENEMY;
+        }
+        if (opcode == USE_HERO_ABILITY) {
+            CardType hero = heroType();
+            return hero == CardType.GENERAL_KOCIORAW || (hero == CardType.EMPRESS_THORINA
+                    && board.getTanks(candidates.getAffectedRow(pc)) > 0);
+        }
+        return false;
+    }
+
+    /**
+     * Bounds the damage the player on turn can still deal to the enemy hero
+     * @param state the game
+     * @param placeFrom the lowest index in hand of a card that can still be placed, CLOSED
+     *                  if none can
+     * @return false if the enemy hero survives even that
+     */
+    private boolean reachable(final Game state, final int placeFrom) {
+        Player player = onTurn(state);
+        Board board = state.getBoard();
+        actors = 0;
+        users = 0;
+        addRow(board, player.getFrontRow());
+        addRow(board, player.getBackRow());
+        List<Card> hand = player.getHand();
+        int first = placeFrom == CLOSED ? hand.size() : placeFrom;
+        for (int i = first; i < hand.size(); i++) {
+            Card card = hand.get(i);
+            CardType type = card.getDefinition().getType();
+            if (card.getMana() <= player.getMana()
+                    && type.getPlacement() != CardType.Placement.NONE) {
+                addActor(type, card.getAttackDamage());
+            }
+        }
+
+        CardType heroType = player.getPlayerHero().getDefinition().getType();
+        boolean heroAbility = heroAbility(player);
+        boolean thorina = heroAbility && heroType == CardType.EMPRESS_THORINA;
+        int enemyFrontRow = player.getBackRow() == 0 ? TWO : ONE;
+        int blockers = board.getTanks(enemyFrontRow);
+        if (blockers > 0 && thorina) {
+            blockers--;
+        }
+        int strikers = actors - blockers;
+        if (strikers <= 0) {
+            return false;
+        }
+        Arrays.sort(attacks, 0, actors);
+        int total = 0;
+        int damage = 0;
+        for (int i = 0; i < actors; i++) {
+            total += attacks[i];
+            if (i >= blockers) {
+                damage += attacks[i];
+            }
+        }
+        damage = Math.min(damage, total - spent(board, enemyFrontRow, thorina));
+        if (heroAbility && heroType == CardType.GENERAL_KOCIORAW && placeFrom != CLOSED) {
+            damage += strikers;
+        }
+        return damage >= enemy(state, player).getPlayerHero().getHealth();
+    }
+
+    /**
+     * A tank falls either to attacks dealing at least its health, or with the help of an
+     * ability aimed at it, which spends the attack of the minion using it. Giving the
+     * weakest of those minions to the healthiest tanks spends the least attack. A column
+     * linked to the one on its left holds the same tank, whose health the hits on the first
+     * column already take, so it only needs a hit.
+     * @param board the board
+     * @param row the front row of the enemy
+     * @param thorina true if Empress Thorina can still destroy a tank
+     * @return the least attack the minions collected by reachable spend on enemy tanks
+     */
+    private int spent(final Board board, final int row, final boolean thorina) {
+        int tanks = 0;
+        for (int column = 0; column < board.getOccupied(row); column++) {
+            int slot = Board.slot(row, column);
+            if (board.isTank(slot)) {
+                healths[tanks++] = board.isLinked(slot) ? 0 : Math.max(board.getHealth(slot), 0);
+            }
+        }
+        Arrays.sort(healths, 0, tanks);
+        Arrays.sort(abilities, 0, users);
+        int spent = 0;
+        int skip = thorina ? 1 : 0;
+        for (int i = skip; i < tanks; i++) {
+            int health = healths[tanks - 1 - i];
+            if (i - skip < users) {
+                spent += Math.min(health, abilities[i - skip]);
+            } else {
+                spent += health;
+            }
+        }
+        return spent;
+    }
+
+    /**
+     * Collects the minions of a row of the player on turn that can still act
+     * @param board the board
+     * @param row the row
+     */
+    private void addRow(final Board board, final int row) {
+        for (int column = 0; column < board.getOccupied(row); column++) {
+            int slot = Board.slot(row, column);
+            if (!board.isFrozen(slot) && !board.hasAttacked(slot)) {
+                addActor(board.getType(slot), board.getAttack(slot));
+            }
+        }
+    }
+
+    /**
+     * Collects one more minion that can act
+     * @param type the type of the minion
+     * @param attack its attack damage
+     */
+    private void addActor(final CardType type, final int attack) {
+        if (actors == attacks.length) {
+            attacks = Arrays.copyOf(attacks, actors * TWO);
+        }
+        attacks[actors++] = attack;
+        if (type.getTarget() == CardType.Target.ENEMY) {
+            if (users == abilities.length) {
+                abilities = Arrays.copyOf(abilities, users * TWO);
+            }
+            abilities[users++] = attack;
+        }
+    }
+
+    /**
+     * @param board the board
+     * @param slot a slot holding a card
+     * @return true if the card is not copied into linked columns
+     */
+    private static boolean alone(final Board board, final int slot) {
+        return !board.isLinked(slot)
+                && (Board.column(slot) == Board.COLUMNS - ONE || !board.isLinked(slot + ONE));
+    }
+
+    /**
+     * @param board the board
+     * @param row a row
+     * @return the number of tanks on the row, a tank copied into linked columns counting once
+     */
+    private static int standing(final Board board, final int row) {
+        int count = 0;
+        for (int column = 0; column < board.getOccupied(row); column++) {
+            int slot = Board.slot(row, column);
+            if (board.isTank(slot) && !board.isLinked(slot)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param state the game
+     * @return the player on turn
+     */
+    private static Player onTurn(final Game state) {
+        if (state.getPlayerOne().isTurn()) {
+            return state.getPlayerOne();
+        }
+        return state.getPlayerTwo();
+    }
+
+    /**
+     * @param player a player of the copy of the game
+     * @return true if the hero of the player can still use its ability
+     */
+    private static boolean heroAbility(final Player player) {
+        Card hero = player.getPlayerHero();
+        return !hero.isHasAttacked() && hero.getMana() <= player.getMana();
+    }
+
+    /**
+     * @return the type of the hero of the player on turn
+     */
+    private CardType heroType() {
+        return onTurn(game).getPlayerHero().getDefinition().getType();
+    }
+
+    /**
+     * @param state the game
+     * @param player a player of the game
+     * @return the other player
+     */
+    private static Player enemy(final Game state, final Player player) {
+        if (player == state.getPlayerOne()) {
+            return state.getPlayerTwo();
+        }
+        return state.getPlayerOne();
+    }
+}
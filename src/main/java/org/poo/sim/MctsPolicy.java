@@ -0,0 +1,368 @@
+package org.poo.sim;
+
+import org.poo.game.Game;
+import org.poo.game.MoveGenerator;
+import org.poo.game.Program;
+import org.poo.output.DiscardingSink;
+import org.poo.players.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Chooses actions by Monte Carlo tree search on the real rules. Each search grows one
+ * tree, shared by workers running at once on the common fork/join pool. A worker owns a
+ * copy of the game taken at the root. For each playout it walks down the tree executing
+ * the actions it selects, expands the leaf it reaches and plays the rest of the game with
+ * a rollout policy. Then it undoes everything through the journal of its copy.
+ *
+ * The visits and score of a node share one atomic long, so they are updated without
+ * locks and always read together. A worker walking down adds a virtual loss to every node
+ * it enters, which steers the other workers to other branches until its outcome replaces
+ * the loss. A search stops after a number of playouts or at a deadline, whichever comes
+ * first. It plays the action of the most visited child of the root, breaking ties by
+ * score and then in favor of the actions generated last.
+ *
+ * A win scores WIN, less a discount of DISCOUNT points per turn it took, so that a side
+ * sure to win does not find every action equal and end its turn forever. The discount
+ * counts turns rather than actions because ending the turn is a single action. Losses
+ * all score 0, or the losing side would stall the game to delay them.
+ */
+public final class MctsPolicy implements Policy {
+    public static final int DEFAULT_PLAYOUTS = 256;
+    private static final int MAX_ROLLOUT = 2000;
+    private static final int NO_WINNER = 0;
+    private static final int ONE = 1;
+    private static final int TWO = 2;
+    private static final int WIN = 1 << 16;
+    private static final int DRAW = WIN / 2;
+    private static final int DISCOUNT = 256;
+    private static final int MAX_DISCOUNT = WIN / 2;
+    private static final int MAX_PLAYOUTS = 1 << 22;
+    private static final int VISITS = 40;
+    private static final long SCORE_MASK = (1L << VISITS) - 1;
+    private static final long VIRTUAL_LOSS = 3;
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final int playouts;
+    private final long budgetNanos;
+    private final Supplier<Policy> rollout;
+    private final Worker[] workers;
+    private long totalPlayouts;
+    private long totalNanos;
+
+    /**
+     * @param threads the number of workers growing a tree at once
+     * @param playouts the number of playouts of a search, at most MAX_PLAYOUTS
+     * @param budgetMillis the time a search may take, 0 for no limit
+     * @param rollout supplies the policy playing the games out, one instance per worker
+     */
+    public MctsPolicy(final int threads, final int playouts, final long budgetMillis,
+                      final Supplier<Policy> rollout) {
+        this.playouts = Math.min(playouts, MAX_PLAYOUTS);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.rollout = rollout;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker();
+        }
+    }
+
+    public MctsPolicy() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_PLAYOUTS, 0,
+                GreedyPolicy::new);
+    }
+
+    @Override
+    public void move(final Game game, final Player player, final Random random,
+                     final Program program) {
+        Node root = new Node(NO_WINNER);
+        Expansion expansion = root.expand(game);
+        if (expansion.moves.size() == 1) {
+            program.add(expansion.moves, 0);
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = Long.MAX_VALUE;
+        if (budgetNanos > 0) {
+            deadline = start + budgetNanos;
+        }
+        AtomicInteger started = new AtomicInteger();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Worker worker : workers) {
+            worker.reset(game, random.nextLong());
+            long end = deadline;
+            tasks.add(ForkJoinTask.adapt(() -> worker.search(root, started, end)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        totalNanos += System.nanoTime() - start;
+        for (Worker worker : workers) {
+            totalPlayouts += worker.finished;
+        }
+
+        int best = 0;
+        long bestStats = -1;
+        for (int pc = expansion.children.length - 1; pc >= 0; pc--) {
+            long stats = expansion.children[pc].stats.get();
+            if (stats > bestStats) {
+                best = pc;
+                bestStats = stats;
+            }
+        }
+        program.add(expansion.moves, best);
+    }
+
+    /**
+     * @return the number of playouts of every search so far
+     */
+    public long getPlayouts() {
+        return totalPlayouts;
+    }
+
+    /**
+     * @return the time spent searching so far, in nanoseconds
+     */
+    public long getSearchNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return the number of playouts per second of searching so far
+     */
+    public double getPlayoutsPerSecond() {
+        if (totalNanos == 0) {
+            return 0;
+        }
+        return totalPlayouts * NANOS_PER_SECOND / totalNanos;
+    }
+
+    /**
+     * A state of the tree, reached by an action taken by the player mover. The high half of
+     * its statistics counts the visits, virtual losses included, and the low half the score
+     * of mover over those visits.
+     */
+    private static final class Node {
+        private final int mover;
+        private final AtomicLong stats = new AtomicLong();
+        private final AtomicReference<Expansion> expansion = new AtomicReference<>();
+
+        Node(final int mover) {
+            this.mover = mover;
+        }
+
+        /**
+         * Lists the actions of the state and creates their nodes, unless another worker
+         * did it first
+         * @param game the game, in the state of the node
+         * @return the actions and children of the node
+         */
+        Expansion expand(final Game game) {
+            Expansion current = expansion.get();
+            if (current != null) {
+                return current;
+            }
+            Program moves = new Program(0);
+            MoveGenerator.generate(game, moves);
+            int player = game.getPlayerOne().isTurn() ? ONE : TWO;
+            Node[] children = new Node[moves.size()];
+            for (int pc = 0; pc < children.length; pc++) {
+                children[pc] = new Node(player);
+            }
+            Expansion created = new Expansion(moves, children);
+            if (expansion.compareAndSet(null, created)) {
+                return created;
+            }
+            return expansion.get();
+        }
+
+        /**
+         * @param expansion the actions and children of the node
+         * @return the index of the child to visit, by UCT, an unvisited child first
+         */
+        int select(final Expansion expansion) {
+            double logVisits = Math.log(Math.max(1, stats.get() >>> VISITS));
+            int best = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int pc = 0; pc < expansion.children.length; pc++) {
+                long childStats = expansion.children[pc].stats.get();
+                long visits = childStats >>> VISITS;
+                if (visits == 0) {
+                    return pc;
+                }
+                double value = (double) (childStats & SCORE_MASK) / (WIN * visits)
+                        + EXPLORATION * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    best = pc;
+                    bestValue = value;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Counts a virtual loss for the player entering the node
+         */
+        void enter() {
+            stats.addAndGet(VIRTUAL_LOSS << VISITS);
+        }
+
+        /**
+         * Replaces the virtual loss with the outcome of the playout
+         * @param winner the winner of the playout, NO_WINNER for a draw
+         * @param discount the discount of a win, for the length of the playout
+         */
+        void leave(final int winner, final int discount) {
+            int score = 0;
+            if (winner == mover) {
+                score = WIN - discount;
+            } else if (winner == NO_WINNER) {
+                score = DRAW;
+            }
+            stats.addAndGet(((1 - VIRTUAL_LOSS) << VISITS) + score);
+        }
+    }
+
+    /**
+     * The actions of a state and the nodes they lead to, in the same order
+     */
+    private static final class Expansion {
+        private final Program moves;
+        private final Node[] children;
+
+        Expansion(final Program moves, final Node[] children) {
+            this.moves = moves;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Runs playouts on its own copy of the game
+     */
+    private final class Worker {
+        private final Policy policy = rollout.get();
+        private final Program action = new Program(1);
+        private final List<Node> path = new ArrayList<>();
+        private Game game;
+        private Random random;
+        private int winsOne;
+        private int winsTwo;
+        private int turns;
+        private long finished;
+
+        /**
+         * Copies the state of the root of a search
+         * @param root the game searched
+         * @param seed the seed of the rollouts
+         */
+        void reset(final Game root, final long seed) {
+            if (game == null || game.getCards() != root.getCards()
+                    || game.getInput() != root.getInput()
+                    || game.getGameInput() != root.getGameInput()) {
+                game = new Game(root.getCards(), root.getInput(), root.getGameInput(), null,
+                        DiscardingSink.INSTANCE);
+                game.startGame();
+                game.getJournal().setRecording(true);
+            }
+            game.copyFrom(root);
+            random = new Random(seed);
+            winsOne = root.getPlayerOne().getWins();
+            winsTwo = root.getPlayerTwo().getWins();
+            turns = root.getTurns();
+            finished = 0;
+        }
+
+        /**
+         * Runs playouts until the search is out of playouts or time
+         * @param root the root of the tree
+         * @param started the number of playouts started by every worker
+         * @param deadline the time the search stops at
+         */
+        void search(final Node root, final AtomicInteger started, final long deadline) {
+            while (started.getAndIncrement() < playouts && System.nanoTime() < deadline) {
+                playout(root);
+                finished++;
+            }
+        }
+
+        /**
+         * Walks down the tree from the root, expands a leaf, plays the game out from one of
+         * its children, records the outcome on the way and restores the root state
+         * @param root the root of the tree
+         */
+        private void playout(final Node root) {
+            path.clear();
+            Node node = root;
+            node.enter();
+            path.add(node);
+            int winner = winner();
+            while (winner == NO_WINNER) {
+                Expansion expansion = node.expansion.get();
+                boolean leaf = expansion == null;
+                if (leaf) {
+                    expansion = node.expand(game);
+                }
+                int pc = node.select(expansion);
+                node = expansion.children[pc];
+                node.enter();
+                path.add(node);
+                game.execute(expansion.moves, pc);
+                winner = winner();
+                if (leaf) {
+                    if (winner == NO_WINNER) {
+                        winner = rollout();
+                    }
+                    break;
+                }
+            }
+            int discount = Math.min((game.getTurns() - turns) * DISCOUNT, MAX_DISCOUNT);
+            for (Node visited : path) {
+                visited.leave(winner, discount);
+            }
+            while (game.getJournal().getMarks() > 0) {
+                game.undo();
+            }
+        }
+
+        /**
+         * Plays the game on with the rollout policy
+         * @return the winner, NO_WINNER if nobody won within MAX_ROLLOUT actions
+         */
+        private int rollout() {
+            for (int i = 0; i < MAX_ROLLOUT; i++) {
+                action.clear();
+                if (game.getPlayerOne().isTurn()) {
+                    policy.move(game, game.getPlayerOne(), random, action);
+                } else {
+                    policy.move(game, game.getPlayerTwo(), random, action);
+                }
+                game.execute(action, 0);
+                int winner = winner();
+                if (winner != NO_WINNER) {
+                    return winner;
+                }
+            }
+            return NO_WINNER;
+        }
+
+        /**
+         * @return the player who won since the root, NO_WINNER if nobody did
+         */
+        private int winner() {
+            if (game.getPlayerOne().getWins() != winsOne) {
+                return ONE;
+            }
+            if (game.getPlayerTwo().getWins() != winsTwo) {
+                return TWO;
+            }
+            return NO_WINNER;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.poo.sim;
+
+import org.poo.game.Game;
+import org.poo.game.Program;
+import org.poo.players.Player;
+
+import java.util.Random;
+
+/**
+ * Chooses the actions of a simulated player. A policy may keep scratch state, so each
+ * thread of the simulator uses its own instance.
+ */
+public interface Policy {
+    /**
+     * Appends the next action of the player on turn, END_PLAYER_TURN to pass the turn
+     * @param game the game
+     * @param player the player on turn
+     * @param random the source of randomness of the game
+     * @param program the program the action is appended to
+     */
+    void move(Game game, Player player, Random random, Program program);
+}
@@ -0,0 +1,23 @@
+package org.poo.sim;
+
+import org.poo.game.Game;
+import org.poo.game.MoveGenerator;
+import org.poo.game.Program;
+import org.poo.players.Player;
+
+import java.util.Random;
+
+/**
+ * Picks one of the legal actions uniformly at random, ending the turn included.
+ */
+public final class RandomPolicy implements Policy {
+    private final Program candidates = new Program(0);
+
+    @Override
+    public void move(final Game game, final Player player, final Random random,
+                     final Program program) {
+        candidates.clear();
+        MoveGenerator.generate(game, candidates);
+        program.add(candidates, random.nextInt(candidates.size()));
+    }
+}
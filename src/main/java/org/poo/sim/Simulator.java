@@ -0,0 +1,231 @@
+package org.poo.sim;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.fileio.GameInput;
+import org.poo.fileio.Input;
+import org.poo.fileio.StartGameInput;
+import org.poo.game.Game;
+import org.poo.game.Program;
+import org.poo.output.DiscardingSink;
+import org.poo.players.Player;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Estimates win rates by playing many games in process. The decks are read from an input
+ * file, and so are the heroes: every pair of heroes met in its games is played with every
+ * pair of decks, once per seed of the range, player one starting on even seeds. The games
+ * are split over the common fork/join pool and played by the real Game and Actions, each
+ * side choosing its actions through a Policy, until a hero dies or MAX_ACTIONS are taken.
+ */
+public final class Simulator {
+    private static final int BATCH = 64;
+    private static final int MAX_ACTIONS = 5000;
+    private static final int DRAW = 0;
+    private static final int ONE_WINS = 1;
+    private static final int TWO_WINS = 2;
+    private static final int OUTCOMES = 3;
+    private static final int GAMES_ARG = 2;
+    private static final int POLICY_ONE_ARG = 3;
+    private static final int POLICY_TWO_ARG = 4;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double PERCENT = 100.0;
+
+    private final Input input;
+    private final List<StartGameInput> matchups = new ArrayList<>();
+    private final Supplier<Policy> policyOne;
+    private final Supplier<Policy> policyTwo;
+
+    public Simulator(final Input input, final Supplier<Policy> policyOne,
+                     final Supplier<Policy> policyTwo) {
+        this.input = input;
+        this.policyOne = policyOne;
+        this.policyTwo = policyTwo;
+        Map<String, StartGameInput> heroes = new LinkedHashMap<>();
+        for (GameInput game : input.getGames()) {
+            StartGameInput start = game.getStartGame();
+            heroes.putIfAbsent(start.getPlayerOneHero().getName() + "/"
+                    + start.getPlayerTwoHero().getName(), start);
+        }
+        for (StartGameInput hero : heroes.values()) {
+            for (int one = 0; one < input.getPlayerOneDecks().getNrDecks(); one++) {
+                for (int two = 0; two < input.getPlayerTwoDecks().getNrDecks(); two++) {
+                    StartGameInput matchup = new StartGameInput();
+                    matchup.setPlayerOneDeckIdx(one);
+                    matchup.setPlayerTwoDeckIdx(two);
+                    matchup.setPlayerOneHero(hero.getPlayerOneHero());
+                    matchup.setPlayerTwoHero(hero.getPlayerTwoHero());
+                    matchups.add(matchup);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param args the input file, the first seed, the number of games per matchup and the
+     *             policies of the two players, random, greedy or mcts (greedy if not
+     *             given)
+     * @throws IOException in case of exceptions to reading
+     */
+    public static void main(final String[] args) throws IOException {
+        Input input = new ObjectMapper().readValue(new File(args[0]), Input.class);
+        int firstSeed = Integer.parseInt(args[1]);
+        int games = Integer.parseInt(args[GAMES_ARG]);
+        Simulator simulator = new Simulator(input,
+                policy(args.length > POLICY_ONE_ARG ? args[POLICY_ONE_ARG] : "greedy"),
+                policy(args.length > POLICY_TWO_ARG ? args[POLICY_TWO_ARG] : "greedy"));
+
+        long start = System.nanoTime();
+        long[] tally = simulator.run(firstSeed, games);
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+        simulator.print(tally);
+        long total = (long) games * simulator.matchups.size();
+        System.out.printf("%d games in %.3f s, %.0f games/s%n", total, seconds, total / seconds);
+    }
+
+    /**
+     * @param name the name of a policy
+     * @return a supplier of instances of the policy
+     */
+    public static Supplier<Policy> policy(final String name) {
+        switch (name) {
+            case "random":
+                return RandomPolicy::new;
+            case "greedy":
+                return GreedyPolicy::new;
+            case "mcts":
+                return MctsPolicy::new;
+            default:
+                throw new IllegalArgumentException("Unknown policy " + name + ".");
+        }
+    }
+
+    /**
+     * Plays every matchup once per seed
+     * @param firstSeed the first seed
+     * @param games the number of seeds
+     * @return the number of draws, wins of player one and wins of player two of every
+     *         matchup, OUTCOMES entries per matchup
+     */
+    public long[] run(final int firstSeed, final int games) {
+        long total = (long) games * matchups.size();
+        return ForkJoinPool.commonPool().invoke(new Batch(firstSeed, 0, total));
+    }
+
+    /**
+     * Plays a game to its end
+     * @param matchup the decks and heroes of the game
+     * @param seed the seed of the game
+     * @param one the policy of player one
+     * @param two the policy of player two
+     * @param program scratch space for the next action
+     * @return DRAW, ONE_WINS or TWO_WINS
+     */
+    private int play(final StartGameInput matchup, final int seed, final Policy one,
+                     final Policy two, final Program program) {
+        StartGameInput start = new StartGameInput();
+        start.setPlayerOneDeckIdx(matchup.getPlayerOneDeckIdx());
+        start.setPlayerTwoDeckIdx(matchup.getPlayerTwoDeckIdx());
+        start.setPlayerOneHero(matchup.getPlayerOneHero());
+        start.setPlayerTwoHero(matchup.getPlayerTwoHero());
+        start.setShuffleSeed(seed);
+        start.setStartingPlayer(seed % 2 == 0 ? ONE_WINS : TWO_WINS);
+        GameInput gameInput = new GameInput();
+        gameInput.setStartGame(start);
+
+        Game game = new Game(input, gameInput, null, DiscardingSink.INSTANCE);
+        game.startGame();
+        game.setPlayerWins(0, 0);
+        Random random = new Random(seed);
+        Player playerOne = game.getPlayerOne();
+        Player playerTwo = game.getPlayerTwo();
+        for (int action = 0; action < MAX_ACTIONS; action++) {
+            program.clear();
+            if (playerOne.isTurn()) {
+                one.move(game, playerOne, random, program);
+            } else {
+                two.move(game, playerTwo, random, program);
+            }
+            game.run(program);
+            if (playerOne.getWins() != 0) {
+                return ONE_WINS;
+            }
+            if (playerTwo.getWins() != 0) {
+                return TWO_WINS;
+            }
+        }
+        return DRAW;
+    }
+
+    /**
+     * Prints the outcomes of every matchup
+     * @param tally the outcomes, as returned by run
+     */
+    public void print(final long[] tally) {
+        System.out.printf("%-5s %-5s %-18s %-18s %8s %8s %8s %7s%n", "deck1", "deck2",
+                "hero one", "hero two", "one wins", "two wins", "draws", "one %");
+        for (int i = 0; i < matchups.size(); i++) {
+            StartGameInput matchup = matchups.get(i);
+            long winsOne = tally[i * OUTCOMES + ONE_WINS];
+            long winsTwo = tally[i * OUTCOMES + TWO_WINS];
+            long draws = tally[i * OUTCOMES + DRAW];
+            long games = winsOne + winsTwo + draws;
+            System.out.printf("%-5d %-5d %-18s %-18s %8d %8d %8d %6.2f%%%n",
+                    matchup.getPlayerOneDeckIdx(), matchup.getPlayerTwoDeckIdx(),
+                    matchup.getPlayerOneHero().getName(), matchup.getPlayerTwoHero().getName(),
+                    winsOne, winsTwo, draws, games == 0 ? 0 : PERCENT * winsOne / games);
+        }
+    }
+
+    /**
+     * The games numbered from first to last, game i playing matchup i modulo the number
+     * of matchups with seed firstSeed + i / the number of matchups
+     */
+    private final class Batch extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+        private final int firstSeed;
+        private final long first;
+        private final long last;
+
+        Batch(final int firstSeed, final long first, final long last) {
+            this.firstSeed = firstSeed;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (last - first > BATCH) {
+                long middle = (first + last) >>> 1;
+                Batch left = new Batch(firstSeed, first, middle);
+                left.fork();
+                long[] tally = new Batch(firstSeed, middle, last).compute();
+                long[] other = left.join();
+                for (int i = 0; i < tally.length; i++) {
+                    tally[i] += other[i];
+                }
+                return tally;
+            }
+            long[] tally = new long[matchups.size() * OUTCOMES];
+            Policy one = policyOne.get();
+            Policy two = policyTwo.get();
+            Program program = new Program(1);
+            for (long game = first; game < last; game++) {
+                int matchup = (int) (game % matchups.size());
+                int seed = firstSeed + (int) (game / matchups.size());
+                int outcome = play(matchups.get(matchup), seed, one, two, program);
+                tally[matchup * OUTCOMES + outcome]++;
+            }
+            return tally;
+        }
+    }
+}